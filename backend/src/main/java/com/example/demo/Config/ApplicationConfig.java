@@ -19,6 +19,7 @@ public class ApplicationConfig {
 
     private final UserRepository userRepository;
 
+    // Connexion par mot de passe uniquement : l'entité est relue (mot de passe compris), hors cache des principaux
     @Bean
     public UserDetailsService userDetailsService() {
         return username -> userRepository.findByEmail(username)
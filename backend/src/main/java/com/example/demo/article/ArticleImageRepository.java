@@ -1,6 +1,19 @@
 package com.example.demo.article;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ArticleImageRepository extends JpaRepository<ArticleImage, Long> {
+
+    // Identifiants Orthanc des images de plusieurs articles : [articleId, orthancInstanceId]
+    @Query("SELECT i.article.id, i.orthancInstanceId FROM ArticleImage i WHERE i.article.id IN :articleIds ORDER BY i.id")
+    List<Object[]> findImageIdsByArticleIds(@Param("articleIds") Collection<Long> articleIds);
+
+    // Toutes les images, pour le fil complet : une lecture séquentielle plutôt qu'une liste IN de tous les articles
+    @Query("SELECT i.article.id, i.orthancInstanceId FROM ArticleImage i ORDER BY i.id")
+    List<Object[]> findAllImageIds();
 }
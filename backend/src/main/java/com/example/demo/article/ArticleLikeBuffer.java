@@ -0,0 +1,113 @@
+package com.example.demo.article;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accumulateur en mémoire des likes pour les articles très sollicités.
+ * Chaque like incrémente le compteur de l'article en mémoire et les deltas sont reportés
+ * périodiquement en base par un UPDATE atomique ; le total renvoyé au client est le dernier
+ * total connu en base plus les likes en attente. Un article sans like en attente ni like récent
+ * est retiré du tampon, qui reste ainsi borné aux articles effectivement sollicités.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.articles.likes", name = "buffered", havingValue = "true")
+public class ArticleLikeBuffer {
+
+    private final MedicalArticleRepository articleRepository;
+
+    // Durée (ms) sans like après laquelle un article entièrement reporté est retiré du tampon
+    @Value("${app.articles.likes.idle-eviction:60000}")
+    private long idleEviction;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Compteur d'un article. Total connu en base et likes en attente sont lus et modifiés ensemble
+     * sous le verrou du compteur : un like concurrent d'un report voit l'état d'avant ou celui
+     * d'après, jamais un total partiel.
+     */
+    private static final class Counter {
+        private int persisted;
+        private long pending;
+        private long lastLikeAt;
+        // Retiré du tampon : un like qui l'obtient encore doit en créer un nouveau
+        private boolean retired;
+
+        private Counter(int persisted) {
+            this.persisted = persisted;
+        }
+    }
+
+    public int like(Long articleId) {
+        while (true) {
+            Counter counter = counters.computeIfAbsent(articleId, id -> new Counter(articleRepository
+                    .findLikeCountById(id)
+                    .orElseThrow(() -> new RuntimeException("Article not found"))));
+            synchronized (counter) {
+                if (!counter.retired) {
+                    counter.pending++;
+                    counter.lastLikeAt = System.currentTimeMillis();
+                    return counter.persisted + (int) counter.pending;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.articles.likes.flush-interval:1000}")
+    public synchronized void flush() {
+        long idleSince = System.currentTimeMillis() - idleEviction;
+        counters.forEach((articleId, counter) -> {
+            long delta;
+            synchronized (counter) {
+                delta = counter.pending;
+                if (delta == 0) {
+                    if (counter.lastLikeAt <= idleSince) {
+                        retire(articleId, counter);
+                    }
+                    return;
+                }
+            }
+            Optional<Integer> total;
+            try {
+                total = articleRepository.addLikes(articleId, (int) delta);
+            } catch (RuntimeException e) {
+                // Rien n'a été retiré : les likes restent en attente jusqu'au prochain report
+                log.warn("Report de {} likes sur l'article {} impossible: {}", delta, articleId, e.getMessage());
+                return;
+            }
+            synchronized (counter) {
+                if (total.isPresent()) {
+                    // Le total relu inclut le delta reporté : seuls les likes arrivés entre-temps restent en attente
+                    counter.persisted = total.get();
+                    counter.pending -= delta;
+                } else {
+                    // Article supprimé entre-temps : les likes en attente sont abandonnés
+                    retire(articleId, counter);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Appelé sous le verrou du compteur
+    private void retire(Long articleId, Counter counter) {
+        counter.retired = true;
+        counters.remove(articleId, counter);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.article;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Stockage des PDF d'articles adressé par contenu : chaque fichier est nommé d'après son empreinte SHA-256.
+ * L'envoi est recopié en flux dans un fichier temporaire du même répertoire (l'empreinte est calculée au passage,
+ * sans charger le fichier en mémoire) puis déplacé atomiquement ; un PDF déjà présent n'est stocké qu'une fois.
+ */
+@Slf4j
+@Component
+public class ArticlePdfStorage {
+
+    public static final String URL_PREFIX = "/api/v1/articles/pdf/";
+
+    private static final String EXTENSION = ".pdf";
+    private static final String TEMP_SUFFIX = ".part";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path directory;
+
+    public ArticlePdfStorage(@Value("${app.upload.articles.dir:uploads/articles/pdf}") String uploadDir) {
+        this.directory = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Enregistre le PDF et renvoie son empreinte (hexadécimale), qui sert d'identifiant de téléchargement
+     */
+    public String store(MultipartFile file) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "upload-", TEMP_SUFFIX);
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = directory.resolve(hash + EXTENSION);
+            if (Files.exists(target)) {
+                // Même contenu déjà stocké : le fichier existant est réutilisé
+                log.debug("PDF {} déjà présent, envoi dédupliqué", hash);
+            } else {
+                // Un envoi concurrent du même contenu produit un fichier identique : le remplacer est sans effet
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Fichier correspondant à l'empreinte, vide si elle est invalide ou inconnue
+     */
+    public Optional<Path> resolve(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(hash + EXTENSION);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    public static String urlFor(String hash) {
+        return URL_PREFIX + hash + EXTENSION;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
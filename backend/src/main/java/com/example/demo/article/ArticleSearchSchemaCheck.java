@@ -0,0 +1,41 @@
+package com.example.demo.article;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Vérifie au démarrage que la colonne de recherche plein texte existe sur PostgreSQL.
+ * Tant que Flyway est désactivé, search_vector (V7) n'est créée que par le script d'initialisation
+ * exécuté après la génération du schéma par Hibernate ; sans elle, chaque recherche échouerait en 500.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ArticleSearchSchemaCheck {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifySearchColumn() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            log.info("Recherche plein texte des articles indisponible sur {}", database);
+            return;
+        }
+        Boolean present = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema() "
+                        + "AND table_name = 'medical_articles' AND column_name = 'search_vector')",
+                Boolean.class);
+        if (!Boolean.TRUE.equals(present)) {
+            throw new IllegalStateException("Colonne medical_articles.search_vector absente : "
+                    + "appliquer db/migration/V7__add_article_search_vector.sql");
+        }
+        log.debug("Colonne de recherche plein texte des articles présente");
+    }
+}
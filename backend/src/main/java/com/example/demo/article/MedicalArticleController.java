@@ -1,14 +1,37 @@
 package com.example.demo.article;
 
 import com.example.demo.article.dto.ArticleDto;
+import com.example.demo.article.dto.ArticleSearchHit;
+import com.example.demo.article.dto.FeedState;
+import com.example.demo.security.AuthenticatedUser;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import com.example.demo.article.ShareRequest;
@@ -17,10 +40,20 @@ import com.example.demo.article.ShareRequest;
 @RequestMapping("/api/v1/articles")
 public class MedicalArticleController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Attributs de requête de Tomcat pour l'envoi de fichier par sendfile (copie zéro)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final MedicalArticleService articleService;
+    private final ArticlePdfStorage pdfStorage;
 
-    public MedicalArticleController(MedicalArticleService articleService) {
+    public MedicalArticleController(MedicalArticleService articleService, ArticlePdfStorage pdfStorage) {
         this.articleService = articleService;
+        this.pdfStorage = pdfStorage;
     }
 
     @PreAuthorize("hasRole('DOCTOR')")
@@ -32,15 +65,110 @@ public class MedicalArticleController {
             @RequestPart(required = false) MultipartFile pdfFile,
             Authentication authentication) throws IOException {
         Long authorId = null;
-        if (authentication != null && authentication.getPrincipal() instanceof com.example.demo.model.User user) {
-            authorId = user.getId();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            authorId = user.id();
         }
         return articleService.create(title, content, authorId, imageIds, pdfFile);
     }
 
     @GetMapping
-    public List<ArticleDto> allArticles() {
-        return articleService.findAll();
+    public ResponseEntity<List<ArticleDto>> allArticles(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        // Requête conditionnelle : 304 sans lecture du fil si l'état du fil en base n'a pas changé
+        FeedState state = articleService.getFeedState();
+        if (request.checkNotModified(state.eTag())) {
+            return null; // réponse 304 déjà préparée
+        }
+
+        List<ArticleDto> articles;
+        if (page == null) {
+            articles = articleService.findFeed(state, Pageable.unpaged());
+        } else {
+            // Borner la pagination pour garder des réponses de taille raisonnable
+            articles = articleService.findFeed(state, PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .body(articles);
+    }
+
+    @GetMapping("/search")
+    public List<ArticleSearchHit> searchArticles(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return articleService.search(q, PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+    }
+
+    // PDF download by content hash, with ETag and single byte-range support
+    @GetMapping("/pdf/{hash:[0-9a-f]{64}}.pdf")
+    public void downloadPdf(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = pdfStorage.resolve(hash).orElse(null);
+        if (file == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        // Contenu adressé par son empreinte : la réponse ne change jamais pour une même URL
+        String eTag = "\"" + hash + "\"";
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return;
+        }
+
+        long length = Files.size(file);
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Plusieurs plages : le fichier entier est renvoyé, ce que permet la RFC 9110
+            if (ranges.size() <= 1) {
+                if (ranges.isEmpty() || ranges.get(0).getRangeStart(length) >= length) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            }
+        }
+
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.inline().filename(hash + ".pdf").build().toString());
+        response.setContentLengthLong(end - start + 1);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat transmet le fichier par sendfile une fois la méthode terminée, sans copie en espace utilisateur
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, out);
+            }
+        }
     }
 
     @GetMapping("/{id}")
@@ -61,8 +189,8 @@ public class MedicalArticleController {
     @PostMapping("/{id}/share")
     public void shareArticle(@PathVariable Long id, @RequestBody ShareRequest request, Authentication authentication) {
         Long fromDoctorId = null;
-        if (authentication != null && authentication.getPrincipal() instanceof com.example.demo.model.User user) {
-            fromDoctorId = user.getId();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            fromDoctorId = user.id();
         }
         articleService.shareArticle(id, fromDoctorId, request.doctorIds());
     }
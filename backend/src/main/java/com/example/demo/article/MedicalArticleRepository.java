@@ -1,6 +1,63 @@
 package com.example.demo.article;
 
+import com.example.demo.article.dto.ArticleDto;
+import com.example.demo.article.dto.ArticleSearchHit;
+import com.example.demo.article.dto.FeedState;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface MedicalArticleRepository extends JpaRepository<MedicalArticle, Long> {
+
+    // Fil d'articles projeté avec le nom de l'auteur en une seule requête (jointure sur authorId)
+    @Query("SELECT new com.example.demo.article.dto.ArticleDto(a.id, a.title, a.content, a.pdfPath, a.authorId, " +
+           "CASE WHEN u.id IS NULL THEN 'Inconnu' " +
+           "ELSE TRIM(CONCAT(COALESCE(u.lastName, ''), ' ', COALESCE(u.firstName, ''))) END, " +
+           "a.createdAt, a.likeCount) " +
+           "FROM MedicalArticle a LEFT JOIN User u ON u.id = a.authorId " +
+           "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ArticleDto> findFeed(Pageable pageable);
+
+    // État agrégé du fil (ETag) : nombre d'articles, plus grand id, date la plus récente, total des likes
+    // et versions de profil des auteurs (+1 par auteur trouvé : la suppression d'un auteur change aussi la somme)
+    @Query("SELECT COUNT(a) AS articleCount, MAX(a.id) AS maxId, MAX(a.createdAt) AS maxCreatedAt, " +
+           "COALESCE(SUM(a.likeCount), 0) AS likeTotal, COALESCE(SUM(u.profileVersion + 1), 0) AS authorVersions " +
+           "FROM MedicalArticle a LEFT JOIN User u ON u.id = a.authorId")
+    FeedState findFeedState();
+
+    // Recherche plein texte sur le vecteur indexé (GIN), classée par pertinence ; le contenu n'est pas relu
+    @Query(value = "SELECT a.id AS id, a.title AS title, a.pdf_path AS pdfUrl, a.author_id AS authorId, " +
+           "COALESCE(NULLIF(TRIM(CONCAT(u.last_name, ' ', u.first_name)), ''), 'Inconnu') AS authorName, " +
+           "a.created_at AS createdAt, a.like_count AS likeCount, " +
+           "ts_rank(a.search_vector, q.query) AS rank " +
+           "FROM medical_articles a " +
+           "CROSS JOIN websearch_to_tsquery('french', :query) AS q(query) " +
+           "LEFT JOIN users u ON u.id = a.author_id " +
+           "WHERE a.search_vector @@ q.query " +
+           "ORDER BY rank DESC, a.created_at DESC, a.id DESC",
+           nativeQuery = true)
+    List<ArticleSearchHit> search(@Param("query") String query, Pageable pageable);
+
+    // Incrément atomique côté base, renvoie le nouveau total (vide si l'article n'existe pas)
+    @Transactional
+    @Query(value = "UPDATE medical_articles SET like_count = like_count + :delta WHERE id = :id RETURNING like_count",
+           nativeQuery = true)
+    Optional<Integer> addLikes(@Param("id") Long id, @Param("delta") int delta);
+
+    // Compteurs de likes courants d'une page du fil : [id, likeCount]
+    @Query("SELECT a.id, a.likeCount FROM MedicalArticle a WHERE a.id IN :ids")
+    List<Object[]> findLikeCountsByIds(@Param("ids") Collection<Long> ids);
+
+    // Compteurs de likes de tout le fil (fil non paginé) : [id, likeCount]
+    @Query("SELECT a.id, a.likeCount FROM MedicalArticle a")
+    List<Object[]> findAllLikeCounts();
+
+    @Query("SELECT a.likeCount FROM MedicalArticle a WHERE a.id = :id")
+    Optional<Integer> findLikeCountById(@Param("id") Long id);
 }
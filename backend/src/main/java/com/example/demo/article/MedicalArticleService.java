@@ -1,19 +1,31 @@
 package com.example.demo.article;
 
 import com.example.demo.article.dto.ArticleDto;
+import com.example.demo.article.dto.ArticleSearchHit;
+import com.example.demo.article.dto.FeedState;
+import com.example.demo.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import com.example.demo.repository.UserRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import com.example.demo.article.ArticleShareRepository;
 
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,20 +34,45 @@ public class MedicalArticleService {
     private final UserRepository userRepository;
 
     private final MedicalArticleRepository articleRepository;
-    private final String uploadDir;
+    private final ArticlePdfStorage pdfStorage;
     private final com.example.demo.service.EmailService emailService;
     private final ArticleShareRepository shareRepository;
+    private final ArticleImageRepository imageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    // null sauf si app.articles.likes.buffered=true
+    private final ArticleLikeBuffer likeBuffer;
+
+    // Feed pages cached per feed content (likes excluded), bounded by the characters they hold;
+    // a new article or an author rename yields a new key on every instance
+    private final Cache<String, List<ArticleDto>> feedCache;
+
+    private static final String INSERT_SHARE_SQL = "INSERT INTO article_shares "
+            + "(article_id, from_doctor_id, to_doctor_id, shared_at) VALUES (?, ?, ?, ?)";
 
     public MedicalArticleService(MedicalArticleRepository articleRepository,
                                  UserRepository userRepository,
                                  ArticleShareRepository shareRepository,
-                                 @Value("${app.upload.articles.dir:uploads/articles/pdf}") String uploadDir,
-                                 com.example.demo.service.EmailService emailService) {
+                                 ArticleImageRepository imageRepository,
+                                 ArticlePdfStorage pdfStorage,
+                                 com.example.demo.service.EmailService emailService,
+                                 JdbcTemplate jdbcTemplate,
+                                 ObjectProvider<ArticleLikeBuffer> likeBuffer,
+                                 @Value("${app.articles.feed-cache.max-chars:8000000}") long feedCacheMaxChars,
+                                 @Value("${app.articles.feed-cache.ttl:30000}") long feedCacheTtl) {
         this.emailService = emailService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.likeBuffer = likeBuffer.getIfAvailable();
         this.articleRepository = articleRepository;
-        this.uploadDir = uploadDir;
+        this.pdfStorage = pdfStorage;
         this.userRepository = userRepository;
         this.shareRepository = shareRepository;
+        this.imageRepository = imageRepository;
+        // The TTL bounds staleness when another instance changes the feed
+        this.feedCache = Caffeine.newBuilder()
+                .maximumWeight(feedCacheMaxChars)
+                .weigher((String key, List<ArticleDto> page) -> weigh(page))
+                .expireAfterWrite(Duration.ofMillis(feedCacheTtl))
+                .build();
     }
 
     public ArticleDto create(String title, String content, Long authorId, List<String> imageIds, MultipartFile pdfFile) throws IOException {
@@ -48,14 +85,9 @@ public class MedicalArticleService {
         article.setAuthorId(authorId);
         article.setCreatedAt(LocalDateTime.now());
 
-        // handle PDF upload if provided
+        // handle PDF upload if provided (content-addressed, identical PDFs are stored once)
         if (pdfFile != null && !pdfFile.isEmpty()) {
-            Path dir = Paths.get(uploadDir);
-            Files.createDirectories(dir);
-            String filename = System.currentTimeMillis() + "_" + pdfFile.getOriginalFilename();
-            Path filePath = dir.resolve(filename);
-            Files.copy(pdfFile.getInputStream(), filePath);
-            article.setPdfPath("/files/articles/pdf/" + filename);
+            article.setPdfPath(ArticlePdfStorage.urlFor(pdfStorage.store(pdfFile)));
         }
 
         // images
@@ -73,47 +105,127 @@ public class MedicalArticleService {
         return MedicalArticleMapper.toDto(saved, name);
     }
 
-    // like article
+    // like article: atomic increment in the database, or in memory when likes are buffered
     public int likeArticle(Long id) {
-        MedicalArticle article = articleRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Article not found"));
-        article.setLikeCount(article.getLikeCount() + 1);
-        articleRepository.save(article);
-        return article.getLikeCount();
+        return likeBuffer != null
+                ? likeBuffer.like(id)
+                : articleRepository.addLikes(id, 1).orElseThrow(() -> new RuntimeException("Article not found"));
     }
 
-    // share article with doctors
+    // share article with doctors: recipients loaded at once, shares and notifications inserted in JDBC batches
+    @Transactional
     public void shareArticle(Long id, Long fromDoctorId, List<Long> toDoctorIds) {
-        MedicalArticle article = articleRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Article not found"));
-        LocalDateTime now = LocalDateTime.now();
-        toDoctorIds.forEach(toId -> {
-            ArticleShare share = ArticleShare.builder()
-                    .article(article)
-                    .fromDoctorId(fromDoctorId)
-                    .toDoctorId(toId)
-                    .sharedAt(now)
-                    .build();
-            shareRepository.save(share);
-            // Send email notification
-            userRepository.findById(toId).ifPresent(u -> {
-                userRepository.findById(fromDoctorId).ifPresent(s -> {
-                    String senderName = (s.getFirstName() != null ? s.getFirstName() : "") + " " + (s.getLastName() != null ? s.getLastName() : "");
-                    emailService.sendSimpleMessage(u.getEmail(), "Article partagé", senderName + " a partagé un article avec vous.");
-                });
-            });
+        if (!articleRepository.existsById(id)) {
+            throw new RuntimeException("Article not found");
+        }
+        if (toDoctorIds == null || toDoctorIds.isEmpty()) {
+            return;
+        }
+        List<User> recipients = userRepository.findAllById(new LinkedHashSet<>(toDoctorIds));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SHARE_SQL, recipients, recipients.size(), (ps, recipient) -> {
+            ps.setLong(1, id);
+            ps.setLong(2, fromDoctorId);
+            ps.setLong(3, recipient.getId());
+            ps.setTimestamp(4, now);
+        });
+
+        // Notifications placées dans la file d'envoi, expédiées en lot par le répartiteur
+        userRepository.findById(fromDoctorId).ifPresent(s -> {
+            String senderName = (s.getFirstName() != null ? s.getFirstName() : "") + " " + (s.getLastName() != null ? s.getLastName() : "");
+            // recipient is NOT NULL in the outbox: one account without an email would roll back the whole share
+            List<String> emails = recipients.stream()
+                    .map(User::getEmail)
+                    .filter(email -> email != null && !email.isBlank())
+                    .distinct()
+                    .toList();
+            emailService.sendToAll(emails, "Article partagé", senderName + " a partagé un article avec vous.");
         });
     }
 
     public List<ArticleDto> findAll() {
-        return articleRepository.findAll().stream()
-                .map(a -> {
-                    String name = userRepository.findById(a.getAuthorId())
-                        .map(u -> (u.getLastName() != null ? u.getLastName() : "") + " " + (u.getFirstName() != null ? u.getFirstName() : ""))
-                        .orElse("Inconnu").trim();
-                    return MedicalArticleMapper.toDto(a, name);
-                })
-                .collect(Collectors.toList());
+        return findFeed(getFeedState(), Pageable.unpaged());
+    }
+
+    // current feed state, read from the database; the controller builds the ETag from it
+    public FeedState getFeedState() {
+        return articleRepository.findFeedState();
+    }
+
+    // feed page for the given state: the page comes from the cache while the feed content is unchanged,
+    // like counts are read fresh so that a like never evicts anything
+    public List<ArticleDto> findFeed(FeedState state, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            // whole feed, as requested by the frontend: one entry, evicted first by the weigher if too large
+            return withCurrentLikes(feedCache.get(state.contentKey() + ":all", k -> loadFeed(pageable)), true);
+        }
+        String key = state.contentKey() + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize();
+        return withCurrentLikes(feedCache.get(key, k -> loadFeed(pageable)), false);
+    }
+
+    // copies of the cached articles with the like counts currently in the database; the whole feed reads
+    // every count instead of binding one IN parameter per article
+    private List<ArticleDto> withCurrentLikes(List<ArticleDto> page, boolean wholeFeed) {
+        if (page.isEmpty()) {
+            return page;
+        }
+        Map<Long, Integer> likes = new HashMap<>();
+        List<Object[]> counts = wholeFeed
+                ? articleRepository.findAllLikeCounts()
+                : articleRepository.findLikeCountsByIds(page.stream().map(ArticleDto::getId).toList());
+        for (Object[] row : counts) {
+            likes.put((Long) row[0], (Integer) row[1]);
+        }
+        return page.stream()
+                .map(a -> new ArticleDto(a.getId(), a.getTitle(), a.getContent(), a.getPdfUrl(), a.getAuthorId(),
+                        a.getAuthorName(), a.getCreatedAt(), likes.getOrDefault(a.getId(), a.getLikeCount()),
+                        a.getImageIds()))
+                .toList();
+    }
+
+    // approximate size of a cached page, in characters
+    private static int weigh(List<ArticleDto> page) {
+        long chars = 0;
+        for (ArticleDto article : page) {
+            chars += 64 + length(article.getTitle()) + length(article.getContent()) + length(article.getAuthorName())
+                    + 64L * article.getImageIds().size();
+        }
+        return (int) Math.min(chars, Integer.MAX_VALUE);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    // feed page: articles with author names in one query, then image ids of the whole page in a second one;
+    // the unpaged feed reads every image instead of binding one IN parameter per article
+    private List<ArticleDto> loadFeed(Pageable pageable) {
+        List<ArticleDto> articles = articleRepository.findFeed(pageable);
+        if (articles.isEmpty()) {
+            return articles;
+        }
+        Map<Long, ArticleDto> byId = articles.stream()
+                .collect(Collectors.toMap(ArticleDto::getId, Function.identity()));
+        List<Object[]> images = pageable.isPaged()
+                ? imageRepository.findImageIdsByArticleIds(byId.keySet())
+                : imageRepository.findAllImageIds();
+        for (Object[] row : images) {
+            ArticleDto article = byId.get((Long) row[0]);
+            // null when the article was created after the feed query
+            if (article != null) {
+                article.getImageIds().add((String) row[1]);
+            }
+        }
+        return articles;
+    }
+
+    // ranked full-text search, served by the GIN index on search_vector
+    @Transactional(readOnly = true)
+    public List<ArticleSearchHit> search(String query, Pageable pageable) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return articleRepository.search(query.trim(), pageable);
     }
 
     public ArticleDto findById(Long id) {
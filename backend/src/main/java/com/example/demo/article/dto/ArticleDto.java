@@ -1,13 +1,16 @@
 package com.example.demo.article.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class ArticleDto {
     private Long id;
     private String title;
@@ -18,4 +21,10 @@ public class ArticleDto {
     private LocalDateTime createdAt;
     private int likeCount;
     private List<String> imageIds; // orthanc ids
+
+    // Used by the feed projection; image ids are attached afterwards
+    public ArticleDto(Long id, String title, String content, String pdfUrl, Long authorId, String authorName,
+                      LocalDateTime createdAt, int likeCount) {
+        this(id, title, content, pdfUrl, authorId, authorName, createdAt, likeCount, new ArrayList<>());
+    }
 }
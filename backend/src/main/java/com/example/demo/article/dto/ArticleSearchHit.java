@@ -0,0 +1,22 @@
+package com.example.demo.article.dto;
+
+import java.time.LocalDateTime;
+
+// Search result row: the columns needed to list a hit, without the article content
+public interface ArticleSearchHit {
+    Long getId();
+
+    String getTitle();
+
+    String getPdfUrl();
+
+    Long getAuthorId();
+
+    String getAuthorName();
+
+    LocalDateTime getCreatedAt();
+
+    int getLikeCount();
+
+    double getRank();
+}
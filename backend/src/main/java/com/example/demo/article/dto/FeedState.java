@@ -0,0 +1,35 @@
+package com.example.demo.article.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate state of the article feed, read from the database on every request.
+ * Any change visible in the feed changes at least one of these values:
+ * - a new or deleted article changes the count or the highest id;
+ * - a like changes the sum of like counts;
+ * - an author rename bumps that author's profile version, and a deleted author drops out of the sum.
+ * The state can therefore serve as a validator that every instance computes the same way.
+ */
+public interface FeedState {
+
+    long getArticleCount();
+
+    Long getMaxId();
+
+    LocalDateTime getMaxCreatedAt();
+
+    Long getLikeTotal();
+
+    Long getAuthorVersions();
+
+    // cache key for feed pages: everything but likes, whose counts are read fresh for each response
+    default String contentKey() {
+        return getArticleCount() + "-" + getMaxId() + "-" + getMaxCreatedAt() + "-" + getAuthorVersions();
+    }
+
+    // strong validator built from the values above
+    default String eTag() {
+        return "\"feed-" + getArticleCount() + "-" + getMaxId() + "-" + getMaxCreatedAt()
+                + "-" + getLikeTotal() + "-" + getAuthorVersions() + "\"";
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.MedicalRecordDTO;
 import com.example.demo.dto.MessageDTO;
 import com.example.demo.dto.UserDTO;
@@ -13,12 +14,15 @@ import com.example.demo.orthanc.dto.ModifyInstanceRequest;
 import com.example.demo.orthanc.service.OrthancService;
 import com.example.demo.service.DoctorService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/doctor")
@@ -51,8 +55,13 @@ public class DoctorController {
      */
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/appointments")
-    public ResponseEntity<List<AppointmentDTO>> getDoctorAppointments() {
-        return ResponseEntity.ok(doctorService.getDoctorAppointments());
+    public ResponseEntity<List<AppointmentDTO>> getDoctorAppointments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (limit == null) {
+            return ResponseEntity.ok(doctorService.getDoctorAppointments());
+        }
+        return doctorService.getDoctorAppointments(cursor, CursorPage.boundedLimit(limit)).toResponse();
     }
 
     /**
@@ -91,13 +100,32 @@ public class DoctorController {
         return ResponseEntity.ok(doctorService.sendMessage(messageDTO));
     }
 
+    /**
+     * Flux Server-Sent Events des nouveaux messages (événements "message", identifiant = id du message)
+     */
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping(value = "/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages() {
+        return doctorService.subscribeToMessages();
+    }
+
     /**
      * Récupérer la conversation avec un utilisateur
      */
     @PreAuthorize("hasRole('DOCTOR')")
     @GetMapping("/messages/{userId}")
-    public ResponseEntity<List<MessageDTO>> getConversation(@PathVariable Long userId) {
-        return ResponseEntity.ok(doctorService.getConversation(userId));
+    public ResponseEntity<List<MessageDTO>> getConversation(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (afterId != null) {
+            return ResponseEntity.ok(doctorService.getConversationSince(userId, afterId));
+        }
+        if (limit == null) {
+            return ResponseEntity.ok(doctorService.getConversation(userId));
+        }
+        return doctorService.getConversation(userId, cursor, CursorPage.boundedLimit(limit)).toResponse();
     }
 
     /**
@@ -105,9 +133,17 @@ public class DoctorController {
      */
     @PreAuthorize("hasRole('DOCTOR')")
     @PostMapping("/messages/{userId}/mark-read")
-    public ResponseEntity<Void> markMessagesAsRead(@PathVariable Long userId) {
-        doctorService.markMessagesAsRead(userId);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Map<String, Integer>> markMessagesAsRead(@PathVariable Long userId) {
+        return ResponseEntity.ok(Map.of("updated", doctorService.markMessagesAsRead(userId)));
+    }
+
+    /**
+     * Nombre de messages non lus par expéditeur
+     */
+    @PreAuthorize("hasRole('DOCTOR')")
+    @GetMapping("/messages/unread-counts")
+    public ResponseEntity<Map<Long, Long>> getUnreadCounts() {
+        return ResponseEntity.ok(doctorService.getUnreadCounts());
     }
 
     /**
@@ -115,8 +151,13 @@ public class DoctorController {
      */
     @PreAuthorize("hasRole('DOCTOR')")
     @GetMapping("/medical-records")
-    public ResponseEntity<List<MedicalRecordDTO>> getDoctorMedicalRecords() {
-        return ResponseEntity.ok(doctorService.getDoctorMedicalRecords());
+    public ResponseEntity<List<MedicalRecordDTO>> getDoctorMedicalRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (limit == null) {
+            return ResponseEntity.ok(doctorService.getDoctorMedicalRecords());
+        }
+        return doctorService.getDoctorMedicalRecords(cursor, CursorPage.boundedLimit(limit)).toResponse();
     }
 
     /**
@@ -246,4 +287,4 @@ public class DoctorController {
             throw e;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.example.demo.controller;
+
+import com.example.demo.security.JwtService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/messages")
+@RequiredArgsConstructor
+public class MessageStreamController {
+
+    private final JwtService jwtService;
+
+    /**
+     * Ticket d'ouverture du flux de messages, à passer en paramètre "ticket" de /{role}/messages/stream
+     * (EventSource ne transmet pas l'en-tête Authorization)
+     */
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<Map<String, String>> streamTicket(Authentication authentication) {
+        return ResponseEntity.ok(Map.of("ticket", jwtService.generateStreamTicket(authentication.getName())));
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.MedicalRecordDTO;
 import com.example.demo.dto.MessageDTO;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.service.NurseService;
@@ -12,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/nurse")
@@ -27,13 +31,24 @@ public class NurseController {
     }
 
     @GetMapping("/appointments")
-    public ResponseEntity<List<AppointmentDTO>> getAllAppointments() {
-        return ResponseEntity.ok(nurseService.getAllAppointments());
+    public ResponseEntity<List<AppointmentDTO>> getAllAppointments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (limit == null) {
+            return ResponseEntity.ok(nurseService.getAllAppointments());
+        }
+        return nurseService.getAllAppointments(cursor, CursorPage.boundedLimit(limit)).toResponse();
     }
 
     @GetMapping("/appointments/doctor/{doctorId}")
-    public ResponseEntity<List<AppointmentDTO>> getDoctorAppointments(@PathVariable Long doctorId) {
-        return ResponseEntity.ok(nurseService.getDoctorAppointments(doctorId));
+    public ResponseEntity<List<AppointmentDTO>> getDoctorAppointments(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (limit == null) {
+            return ResponseEntity.ok(nurseService.getDoctorAppointments(doctorId));
+        }
+        return nurseService.getDoctorAppointments(doctorId, cursor, CursorPage.boundedLimit(limit)).toResponse();
     }
 
     @PostMapping("/appointments")
@@ -66,16 +81,49 @@ public class NurseController {
         return ResponseEntity.ok(nurseService.sendMessage(messageDTO));
     }
 
+    /**
+     * Flux Server-Sent Events des nouveaux messages (événements "message", identifiant = id du message)
+     */
+    @GetMapping(value = "/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages() {
+        return nurseService.subscribeToMessages();
+    }
+
     @GetMapping("/messages/{userId}")
-    public ResponseEntity<List<MessageDTO>> getConversation(@PathVariable Long userId) {
-        return ResponseEntity.ok(nurseService.getConversation(userId));
+    public ResponseEntity<List<MessageDTO>> getConversation(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (afterId != null) {
+            return ResponseEntity.ok(nurseService.getConversationSince(userId, afterId));
+        }
+        if (limit == null) {
+            return ResponseEntity.ok(nurseService.getConversation(userId));
+        }
+        return nurseService.getConversation(userId, cursor, CursorPage.boundedLimit(limit)).toResponse();
+    }
+
+    @GetMapping("/messages/unread-counts")
+    public ResponseEntity<Map<Long, Long>> getUnreadCounts() {
+        return ResponseEntity.ok(nurseService.getUnreadCounts());
+    }
+
+    @PostMapping("/messages/{userId}/mark-read")
+    public ResponseEntity<Map<String, Integer>> markMessagesAsRead(@PathVariable Long userId) {
+        return ResponseEntity.ok(Map.of("updated", nurseService.markMessagesAsRead(userId)));
     }
 
     /* ====== Medical Records endpoints ====== */
 
     @GetMapping("/medical-records")
-    public ResponseEntity<List<MedicalRecordDTO>> getAllMedicalRecords() {
-        return ResponseEntity.ok(nurseService.getAllMedicalRecords());
+    public ResponseEntity<List<MedicalRecordDTO>> getAllMedicalRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (limit == null) {
+            return ResponseEntity.ok(nurseService.getAllMedicalRecords());
+        }
+        return nurseService.getAllMedicalRecords(cursor, CursorPage.boundedLimit(limit)).toResponse();
     }
 
     @GetMapping("/medical-records/{id}")
@@ -93,4 +141,4 @@ public class NurseController {
         nurseService.deleteMedicalRecord(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+}
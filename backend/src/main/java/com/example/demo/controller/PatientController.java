@@ -1,16 +1,19 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.dto.MedicalRecordDTO;
 import com.example.demo.dto.MessageDTO;
 import com.example.demo.service.PatientService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -31,9 +34,15 @@ public class PatientController {
     }
 
     @GetMapping("/appointments")
-    public ResponseEntity<List<AppointmentDTO>> getPatientAppointments(Authentication authentication) {
+    public ResponseEntity<List<AppointmentDTO>> getPatientAppointments(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         log.info("Récupération des rendez-vous pour le patient: {}", authentication.getName());
         try {
+            if (limit != null) {
+                return patientService.getPatientAppointments(cursor, CursorPage.boundedLimit(limit)).toResponse();
+            }
             List<AppointmentDTO> appointments = patientService.getPatientAppointments();
             log.info("Nombre de rendez-vous trouvés: {}", appointments.size());
             return ResponseEntity.ok(appointments);
@@ -80,8 +89,13 @@ public class PatientController {
     }
 
     @GetMapping("/medical-records")
-    public ResponseEntity<List<MedicalRecordDTO>> getPatientMedicalRecords() {
-        return ResponseEntity.ok(patientService.getPatientMedicalRecords());
+    public ResponseEntity<List<MedicalRecordDTO>> getPatientMedicalRecords(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (limit == null) {
+            return ResponseEntity.ok(patientService.getPatientMedicalRecords());
+        }
+        return patientService.getPatientMedicalRecords(cursor, CursorPage.boundedLimit(limit)).toResponse();
     }
     
     /**
@@ -103,23 +117,48 @@ public class PatientController {
         return ResponseEntity.ok(patientService.sendMessage(messageDTO));
     }
 
+    /**
+     * Flux Server-Sent Events des nouveaux messages (événements "message", identifiant = id du message)
+     */
+    @GetMapping(value = "/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages() {
+        return patientService.subscribeToMessages();
+    }
+
     /**
      * Récupérer la conversation avec un utilisateur
      */
     @GetMapping("/messages/{userId}")
-    public ResponseEntity<List<MessageDTO>> getConversation(@PathVariable Long userId) {
+    public ResponseEntity<List<MessageDTO>> getConversation(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         log.info("Récupération de la conversation avec l'utilisateur ID: {}", userId);
-        return ResponseEntity.ok(patientService.getConversation(userId));
+        if (afterId != null) {
+            return ResponseEntity.ok(patientService.getConversationSince(userId, afterId));
+        }
+        if (limit == null) {
+            return ResponseEntity.ok(patientService.getConversation(userId));
+        }
+        return patientService.getConversation(userId, cursor, CursorPage.boundedLimit(limit)).toResponse();
     }
 
     /**
      * Marquer les messages comme lus
      */
     @PostMapping("/messages/{userId}/mark-read")
-    public ResponseEntity<Void> markMessagesAsRead(@PathVariable Long userId) {
+    public ResponseEntity<Map<String, Integer>> markMessagesAsRead(@PathVariable Long userId) {
         log.info("Marquage des messages comme lus pour l'utilisateur ID: {}", userId);
-        patientService.markMessagesAsRead(userId);
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(Map.of("updated", patientService.markMessagesAsRead(userId)));
+    }
+
+    /**
+     * Nombre de messages non lus par expéditeur
+     */
+    @GetMapping("/messages/unread-counts")
+    public ResponseEntity<Map<Long, Long>> getUnreadCounts() {
+        return ResponseEntity.ok(patientService.getUnreadCounts());
     }
 
     /**
@@ -131,4 +170,4 @@ public class PatientController {
         log.info("Annulation du rendez-vous ID: {}", id);
         return ResponseEntity.ok(patientService.cancelAppointment(id));
     }
-} 
\ No newline at end of file
+}
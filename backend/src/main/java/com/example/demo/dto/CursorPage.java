@@ -0,0 +1,90 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page d'une liste parcourue par clé (keyset) : le curseur encode la date et l'identifiant
+ * du dernier élément renvoyé, la page suivante reprend strictement après lui.
+ * Le curseur est opaque pour le client et vaut null sur la dernière page.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_LIMIT = 100;
+
+    // Bornes utilisées pour la première page, compatibles avec les timestamps PostgreSQL
+    private static final Key FIRST_ASCENDING = new Key(LocalDateTime.of(1900, 1, 1, 0, 0), 0L);
+    private static final Key FIRST_DESCENDING = new Key(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+
+    private List<T> content;
+    private String nextCursor;
+
+    /**
+     * Position dans une liste triée par (date, id)
+     */
+    public record Key(LocalDateTime at, Long id) {
+    }
+
+    public static int boundedLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    /**
+     * Décode le curseur reçu, ou renvoie la borne de départ si aucun curseur n'est fourni
+     */
+    public static Key decode(String cursor, boolean descending) {
+        if (cursor == null || cursor.isBlank()) {
+            return descending ? FIRST_DESCENDING : FIRST_ASCENDING;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            return new Key(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Curseur de pagination invalide");
+        }
+    }
+
+    public static String encode(LocalDateTime at, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((at + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Construit la page à partir de limit + 1 lignes lues : la ligne en trop indique qu'une page suit
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, LocalDateTime> at, Function<T, Long> id) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, limit);
+        T last = content.get(limit - 1);
+        return new CursorPage<>(content, encode(at.apply(last), id.apply(last)));
+    }
+
+    /**
+     * Réponse HTTP de la page : le contenu en corps, le curseur de la page suivante dans l'en-tête X-Next-Cursor
+     */
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+}
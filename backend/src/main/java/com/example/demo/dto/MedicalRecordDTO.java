@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -24,4 +25,10 @@ public class MedicalRecordDTO {
     private String notes;
     private List<MedicalImageDTO> medicalImages;
     private int imageCount;
+
+    // Utilisé par les projections JPQL : les images sont rattachées ensuite
+    public MedicalRecordDTO(Long id, Long patientId, String patientName, Long doctorId, String doctorName,
+                            String diagnosis, String treatment, LocalDateTime createdAt, String notes) {
+        this(id, patientId, patientName, doctorId, doctorName, diagnosis, treatment, createdAt, notes, new ArrayList<>(), 0);
+    }
 } 
\ No newline at end of file
@@ -13,7 +13,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        // Pagination par clé des rendez-vous (dateTime, id)
+        @Index(name = "idx_appointments_doctor_date", columnList = "doctor_id, date_time, id"),
+        @Index(name = "idx_appointments_patient_date", columnList = "patient_id, date_time, id"),
+        @Index(name = "idx_appointments_date", columnList = "date_time, id")
+})
 public class Appointment {
 
     @Id
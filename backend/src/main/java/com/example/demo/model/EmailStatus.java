@@ -0,0 +1,13 @@
+package com.example.demo.model;
+
+/**
+ * État d'un email dans la file d'envoi.
+ */
+public enum EmailStatus {
+    /** En attente d'envoi ou de nouvelle tentative */
+    PENDING,
+    /** Accepté par le serveur SMTP */
+    SENT,
+    /** Abandonné après le nombre maximal de tentatives */
+    DEAD
+}
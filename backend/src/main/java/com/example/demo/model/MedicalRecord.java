@@ -14,7 +14,12 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "medical_records")
+@Table(name = "medical_records", indexes = {
+        // Pagination par clé des dossiers médicaux (createdAt, id)
+        @Index(name = "idx_medical_records_doctor_created", columnList = "doctor_id, created_at, id"),
+        @Index(name = "idx_medical_records_patient_created", columnList = "patient_id, created_at, id"),
+        @Index(name = "idx_medical_records_created", columnList = "created_at, id")
+})
 public class MedicalRecord {
 
     @Id
@@ -13,7 +13,10 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // Pagination par clé des conversations (sentAt, id), dans chaque sens d'échange
+        @Index(name = "idx_messages_sender_receiver_sent", columnList = "sender_id, receiver_id, sent_at, id")
+})
 public class Message {
 
     @Id
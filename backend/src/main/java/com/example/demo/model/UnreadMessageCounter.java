@@ -0,0 +1,26 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de messages non lus par couple (destinataire, expéditeur), tenu à jour à l'envoi
+ * et au marquage comme lu pour éviter de compter les messages à chaque lecture.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "unread_message_counters")
+public class UnreadMessageCounter {
+
+    @EmbeddedId
+    private UnreadMessageCounterId id;
+
+    @Column(nullable = false)
+    private long unreadCount;
+}
@@ -0,0 +1,22 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class UnreadMessageCounterId implements Serializable {
+
+    @Column(name = "receiver_id")
+    private Long receiverId;
+
+    @Column(name = "sender_id")
+    private Long senderId;
+}
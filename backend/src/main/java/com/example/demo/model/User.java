@@ -43,6 +43,22 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private AccountStatus status = AccountStatus.ACTIVE;
 
+    /**
+     * Version des jetons émis pour ce compte, incrémentée à chaque changement de rôle ou de statut
+     * pour révoquer les jetons sans état déjà distribués.
+     */
+    @Builder.Default
+    @Column(nullable = false)
+    private long tokenVersion = 0L;
+
+    /**
+     * Version du profil public (prénom, nom), incrémentée à chaque renommage ; le fil d'articles
+     * s'en sert pour détecter qu'un nom d'auteur affiché a changé.
+     */
+    @Builder.Default
+    @Column(nullable = false)
+    private long profileVersion = 0L;
+
     @ToString.Exclude
     @OneToMany(mappedBy = "patient")
     private List<Appointment> patientAppointments;
@@ -0,0 +1,8 @@
+package com.example.demo.orthanc.cache;
+
+/**
+ * Octets d'une image et instant (ms) de leur première mise en cache. Cet instant suit l'image
+ * d'un niveau à l'autre : la durée de vie ne repart pas à zéro lors d'une rétrogradation.
+ */
+record CachedImage(byte[] data, long writtenAt) {
+}
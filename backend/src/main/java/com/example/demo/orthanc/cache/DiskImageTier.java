@@ -0,0 +1,269 @@
+package com.example.demo.orthanc.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Niveau disque du cache d'images : un fichier par entrée, écrit dans un fichier temporaire
+ * puis déplacé atomiquement, et relu d'un bloc. Aucun mappage mémoire n'est conservé : le fichier
+ * peut être remplacé ou supprimé dès la lecture terminée (y compris sous Windows).
+ * La date de modification du fichier porte l'instant de première mise en cache de l'image : une entrée
+ * plus ancienne que la durée de vie des images est supprimée à la lecture. L'index LRU est reconstruit
+ * au démarrage à partir des fichiers encore valides, les fichiers expirés étant supprimés ; les
+ * modifications faites dans Orthanc pendant un arrêt ne peuvent donc pas être servies au-delà de cette durée.
+ * Les images rendues n'étant pas chiffrées, le répertoire est réservé au compte du service (0700 sous POSIX),
+ * y compris s'il existait déjà.
+ */
+@Slf4j
+class DiskImageTier {
+
+    private static final String SUFFIX = ".img";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private record Entry(long size, long writtenAt) {
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    // Nom de fichier -> taille et instant d'écriture, en ordre d'accès
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    DiskImageTier(Path directory, long maxBytes, long ttlMillis, LongSupplier clock) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        createPrivateDirectory(directory);
+        loadIndex();
+    }
+
+    CachedImage get(String key) {
+        String name = fileName(key);
+        Entry entry;
+        synchronized (this) {
+            entry = index.get(name);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+        if (isExpired(entry.writtenAt())) {
+            invalidate(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            byte[] data = Files.readAllBytes(directory.resolve(name));
+            hits.incrementAndGet();
+            return new CachedImage(data, entry.writtenAt());
+        } catch (NoSuchFileException e) {
+            // Fichier supprimé par une éviction concurrente
+            forget(name);
+        } catch (IOException e) {
+            log.warn("Lecture impossible du cache disque {}: {}", name, e.getMessage());
+            forget(name);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    void put(String key, CachedImage image) {
+        byte[] data = image.data();
+        if (data.length > maxBytes || isExpired(image.writtenAt())) {
+            return;
+        }
+        String name = fileName(key);
+        synchronized (this) {
+            Entry existing = index.get(name);
+            if (existing != null && existing.size() == data.length && existing.writtenAt() >= image.writtenAt()) {
+                // Déjà présent (entrée promue depuis le disque puis rétrogradée)
+                return;
+            }
+        }
+
+        Path target = directory.resolve(name);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, name, TEMP_SUFFIX);
+            Files.write(temp, data);
+            // L'instant d'écriture survit ainsi à un redémarrage
+            Files.setLastModifiedTime(temp, FileTime.fromMillis(image.writtenAt()));
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Écriture impossible dans le cache disque {}: {}", name, e.getMessage());
+            deleteQuietly(temp);
+            return;
+        }
+
+        List<String> evicted;
+        synchronized (this) {
+            Entry previous = index.put(name, new Entry(data.length, image.writtenAt()));
+            if (previous != null) {
+                bytes -= previous.size();
+            }
+            bytes += data.length;
+            evicted = trimToCapacity();
+        }
+        evicted.forEach(evictedName -> deleteQuietly(directory.resolve(evictedName)));
+    }
+
+    void invalidate(String key) {
+        String name = fileName(key);
+        forget(name);
+        deleteQuietly(directory.resolve(name));
+    }
+
+    void clear() {
+        List<String> names;
+        synchronized (this) {
+            names = new ArrayList<>(index.keySet());
+            index.clear();
+            bytes = 0;
+        }
+        names.forEach(name -> deleteQuietly(directory.resolve(name)));
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    private boolean isExpired(long writtenAt) {
+        return clock.getAsLong() - writtenAt >= ttlMillis;
+    }
+
+    private synchronized void forget(String name) {
+        Entry removed = index.remove(name);
+        if (removed != null) {
+            bytes -= removed.size();
+        }
+    }
+
+    /**
+     * Retire les entrées les moins récemment utilisées jusqu'à repasser sous la limite.
+     * Appelé sous verrou ; les fichiers sont supprimés par l'appelant.
+     */
+    private List<String> trimToCapacity() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> eldest = index.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> entry = eldest.next();
+            eldest.remove();
+            bytes -= entry.getValue().size();
+            evicted.add(entry.getKey());
+        }
+        return evicted;
+    }
+
+    /**
+     * Reconstruit l'index à partir du répertoire, du fichier le plus ancien au plus récent.
+     * Les fichiers expirés pendant l'arrêt sont supprimés au lieu d'être réindexés.
+     */
+    private void loadIndex() throws IOException {
+        record CachedFile(Path path, long size, long lastModified) {
+        }
+
+        List<CachedFile> files = new ArrayList<>();
+        int expired = 0;
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // Écriture interrompue par un arrêt brutal
+                    deleteQuietly(path);
+                } else if (name.endsWith(SUFFIX)) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    long lastModified = attributes.lastModifiedTime().toMillis();
+                    if (isExpired(lastModified)) {
+                        deleteQuietly(path);
+                        expired++;
+                    } else {
+                        files.add(new CachedFile(path, attributes.size(), lastModified));
+                    }
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(CachedFile::lastModified));
+
+        List<String> evicted;
+        synchronized (this) {
+            for (CachedFile file : files) {
+                index.put(file.path().getFileName().toString(), new Entry(file.size(), file.lastModified()));
+                bytes += file.size();
+            }
+            evicted = trimToCapacity();
+        }
+        evicted.forEach(name -> deleteQuietly(directory.resolve(name)));
+        log.info("Cache disque d'images Orthanc: {} fichiers ({} octets) dans {}, {} fichiers expirés supprimés",
+                size(), bytes(), directory, expired);
+    }
+
+    private static void createPrivateDirectory(Path directory) throws IOException {
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory);
+            return;
+        }
+        if (Files.notExists(directory)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+        }
+        // Répertoire existant ou créé sous un umask plus large : droits resserrés
+        Files.setPosixFilePermissions(directory, OWNER_ONLY);
+    }
+
+    private static String fileName(String key) {
+        return key.replaceAll("[^A-Za-z0-9_.-]", "_") + SUFFIX;
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Suppression impossible de {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.orthanc.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Niveau LRU hors tas pour les octets d'images : chaque entrée est stockée dans un
+ * ByteBuffer direct, invisible pour le ramasse-miettes. Un succès est recopié dans un tableau
+ * éphémère destiné à la réponse (l'API du cache expose des byte[]) : seule la conservation des
+ * images se fait hors tas, pas leur lecture. Une entrée plus ancienne que la durée de vie des
+ * images est retirée à la lecture. Les entrées évincées sont
+ * transmises au niveau inférieur (disque) via {@code demotion}, hors du verrou des lecteurs ;
+ * une invalidation attend la fin d'une rétrogradation en cours ou l'annule si elle n'a pas commencé,
+ * si bien qu'une image invalidée ne peut pas réapparaître sur disque.
+ */
+class OffHeapImageTier {
+
+    private record Entry(ByteBuffer buffer, long writtenAt) {
+    }
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final BiConsumer<String, CachedImage> demotion;
+
+    // Ordre d'accès : l'entrée la plus ancienne est la moins récemment utilisée
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    // Entrées évincées pas encore écrites au niveau inférieur (protégé par this)
+    private final Map<String, Entry> pendingDemotions = new HashMap<>();
+    // Sérialise les rétrogradations avec les invalidations (toujours pris avant this)
+    private final Object demotionLock = new Object();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    OffHeapImageTier(long maxBytes, long ttlMillis, LongSupplier clock, BiConsumer<String, CachedImage> demotion) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.demotion = demotion;
+    }
+
+    CachedImage get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && clock.getAsLong() - entry.writtenAt() >= ttlMillis) {
+                // Expirée : ni servie ni rétrogradée
+                entries.remove(key);
+                bytes -= entry.buffer().capacity();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new CachedImage(toBytes(entry.buffer()), entry.writtenAt());
+    }
+
+    void put(String key, CachedImage image) {
+        byte[] data = image.data();
+        if (data.length > maxBytes) {
+            synchronized (demotionLock) {
+                demotion.accept(key, image);
+            }
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data).flip();
+
+        List<Map.Entry<String, Entry>> evicted = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(buffer, image.writtenAt()));
+            if (previous != null) {
+                bytes -= previous.buffer().capacity();
+            }
+            bytes += buffer.capacity();
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> entry = eldest.next();
+                eldest.remove();
+                bytes -= entry.getValue().buffer().capacity();
+                evicted.add(entry);
+                pendingDemotions.put(entry.getKey(), entry.getValue());
+            }
+        }
+        // Rétrogradation hors verrou des lecteurs : l'écriture disque ne les bloque pas
+        for (Map.Entry<String, Entry> entry : evicted) {
+            synchronized (demotionLock) {
+                boolean pending;
+                synchronized (this) {
+                    pending = pendingDemotions.remove(entry.getKey(), entry.getValue());
+                }
+                if (pending) {
+                    Entry demoted = entry.getValue();
+                    demotion.accept(entry.getKey(), new CachedImage(toBytes(demoted.buffer()), demoted.writtenAt()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Retire l'entrée et annule sa rétrogradation éventuelle. Au retour, aucune écriture de cette
+     * entrée vers le niveau inférieur n'est plus en cours : l'appelant peut l'y invalider à son tour.
+     */
+    void invalidate(String key) {
+        synchronized (demotionLock) {
+            synchronized (this) {
+                Entry removed = entries.remove(key);
+                if (removed != null) {
+                    bytes -= removed.buffer().capacity();
+                }
+                pendingDemotions.remove(key);
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (demotionLock) {
+            synchronized (this) {
+                entries.clear();
+                pendingDemotions.clear();
+                bytes = 0;
+            }
+        }
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    long hits() {
+        return hits.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        // duplicate() : position indépendante, le tampon partagé n'est jamais modifié
+        ByteBuffer view = buffer.duplicate();
+        byte[] data = new byte[view.remaining()];
+        view.get(data);
+        return data;
+    }
+}
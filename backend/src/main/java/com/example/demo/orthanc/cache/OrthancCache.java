@@ -1,90 +1,103 @@
 package com.example.demo.orthanc.cache;
 
+import com.example.demo.orthanc.config.OrthancProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Cache pour les réponses d'Orthanc avec expiration automatique des entrées
- * Permet d'éviter les requêtes répétitives vers Orthanc pour les mêmes données
+ * Permet d'éviter les requêtes répétitives vers Orthanc pour les mêmes données.
+ * Les métadonnées sont bornées en nombre d'entrées et les images en octets ; l'admission
+ * (W-TinyLFU) et l'expiration sont gérées par Caffeine, sans thread de nettoyage dédié.
+ * Les images évincées du tas descendent dans un niveau hors tas puis sur disque.
+ * Un index parent/enfants (étude -> séries -> instances) permet des invalidations en cascade.
  */
 @Slf4j
 @Component
 public class OrthancCache {
 
-    // Structure de données pour stocker les entrées du cache avec leur timestamp d'expiration
-    private static class CacheEntry<T> {
-        private final T value;
-        private final long expirationTime;
-
-        public CacheEntry(T value, long ttlMillis) {
-            this.value = value;
-            this.expirationTime = System.currentTimeMillis() + ttlMillis;
-        }
-
-        public boolean isExpired() {
-            return System.currentTimeMillis() > expirationTime;
-        }
-
-        public T getValue() {
-            return value;
-        }
-    }
-
     // Caches pour différents types de données
-    private final Map<String, CacheEntry<Object>> studyCache = new ConcurrentHashMap<>();
-    private final Map<String, CacheEntry<Object>> seriesCache = new ConcurrentHashMap<>();
-    private final Map<String, CacheEntry<Object>> instanceCache = new ConcurrentHashMap<>();
-    private final Map<String, CacheEntry<byte[]>> imageCache = new ConcurrentHashMap<>();
-
-    // Durées de vie par défaut (en millisecondes)
-    private static final long STUDY_TTL = 5 * 60 * 1000; // 5 minutes
-    private static final long SERIES_TTL = 5 * 60 * 1000; // 5 minutes
-    private static final long INSTANCE_TTL = 10 * 60 * 1000; // 10 minutes
-    private static final long IMAGE_TTL = 15 * 60 * 1000; // 15 minutes
+    private final Cache<String, Object> studyCache;
+    private final Cache<String, Object> seriesCache;
+    private final Cache<String, Object> instanceCache;
+    private final Cache<String, CachedImage> imageCache;
+    private final OffHeapImageTier offHeapImages;
+    // null si le niveau disque est désactivé ou indisponible
+    private final DiskImageTier diskImages;
 
-    private final ScheduledExecutorService cleanupExecutor;
+    // Index hiérarchique : identifiant parent -> enfants, et enfant -> parent
+    private final Cache<String, Set<String>> childrenIndex;
+    private final Cache<String, String> parentIndex;
 
-    public OrthancCache() {
-        // Planifier le nettoyage périodique du cache
-        cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
-        cleanupExecutor.scheduleAtFixedRate(this::cleanupCache, 1, 1, TimeUnit.MINUTES);
-        log.info("Cache Orthanc initialisé avec succès");
+    public OrthancCache(OrthancProperties orthancProperties) {
+        OrthancProperties.Cache config = orthancProperties.getCache();
+        studyCache = metadataCache(config.getMetadataMaxEntries(), config.getStudyTtl());
+        seriesCache = metadataCache(config.getMetadataMaxEntries(), config.getSeriesTtl());
+        instanceCache = metadataCache(config.getMetadataMaxEntries(), config.getInstanceTtl());
+        diskImages = createDiskTier(config);
+        // Les niveaux inférieurs appliquent la même durée de vie, comptée depuis la mise en cache initiale
+        offHeapImages = new OffHeapImageTier(config.getOffHeapMaxBytes(), config.getImageTtl(),
+                System::currentTimeMillis, (key, image) -> {
+                    if (diskImages != null) {
+                        diskImages.put(key, image);
+                    }
+                });
+        imageCache = Caffeine.newBuilder()
+                .maximumWeight(config.getImageMaxBytes())
+                .weigher((String key, CachedImage value) -> value.data().length)
+                .expireAfterWrite(Duration.ofMillis(config.getImageTtl()))
+                // Seules les évictions pour taille sont rétrogradées, pas les expirations ni invalidations.
+                // evictionListener s'exécute de façon synchrone avec le retrait de l'entrée : une invalidation
+                // qui suit l'éviction trouve donc déjà l'image dans le niveau hors tas et l'en retire
+                .evictionListener((String key, CachedImage value, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE && key != null && value != null) {
+                        offHeapImages.put(key, value);
+                    }
+                })
+                .recordStats()
+                .build();
+        childrenIndex = Caffeine.newBuilder().maximumSize(config.getIndexMaxEntries()).build();
+        parentIndex = Caffeine.newBuilder().maximumSize(config.getIndexMaxEntries()).build();
+        log.info("Cache Orthanc initialisé ({} entrées max par type, {} octets max pour les images)",
+                config.getMetadataMaxEntries(), config.getImageMaxBytes());
     }
 
-    /**
-     * Nettoie les entrées expirées du cache
-     */
-    private void cleanupCache() {
+    private static DiskImageTier createDiskTier(OrthancProperties.Cache config) {
+        if (!config.isDiskEnabled()) {
+            return null;
+        }
+        if (config.getDiskPath() == null || config.getDiskPath().isBlank()) {
+            log.warn("Cache disque d'images désactivé: orthanc.cache.disk-path doit désigner un répertoire dédié");
+            return null;
+        }
         try {
-            int studyRemoved = removeExpiredEntries(studyCache);
-            int seriesRemoved = removeExpiredEntries(seriesCache);
-            int instanceRemoved = removeExpiredEntries(instanceCache);
-            int imageRemoved = removeExpiredEntries(imageCache);
-
-            if (studyRemoved + seriesRemoved + instanceRemoved + imageRemoved > 0) {
-                log.debug("Nettoyage du cache Orthanc: {} études, {} séries, {} instances, {} images supprimées",
-                        studyRemoved, seriesRemoved, instanceRemoved, imageRemoved);
-            }
-        } catch (Exception e) {
-            log.error("Erreur lors du nettoyage du cache Orthanc", e);
+            return new DiskImageTier(Path.of(config.getDiskPath()), config.getDiskMaxBytes(),
+                    config.getImageTtl(), System::currentTimeMillis);
+        } catch (IOException e) {
+            log.warn("Cache disque d'images désactivé ({}): {}", config.getDiskPath(), e.getMessage());
+            return null;
         }
     }
 
-    private <T> int removeExpiredEntries(Map<String, CacheEntry<T>> cache) {
-        int count = 0;
-        for (Map.Entry<String, CacheEntry<T>> entry : cache.entrySet()) {
-            if (entry.getValue().isExpired()) {
-                cache.remove(entry.getKey());
-                count++;
-            }
-        }
-        return count;
+    private static Cache<String, Object> metadataCache(long maxEntries, long ttlMillis) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
     }
 
     /**
@@ -92,19 +105,18 @@ public class OrthancCache {
      */
     @SuppressWarnings("unchecked")
     public <T> T getStudy(String studyId) {
-        CacheEntry<Object> entry = studyCache.get(studyId);
-        if (entry != null && !entry.isExpired()) {
+        Object study = studyCache.getIfPresent(studyId);
+        if (study != null) {
             log.debug("Cache hit pour l'étude {}", studyId);
-            return (T) entry.getValue();
         }
-        return null;
+        return (T) study;
     }
 
     /**
      * Met en cache une étude
      */
     public <T> void putStudy(String studyId, T study) {
-        studyCache.put(studyId, new CacheEntry<>(study, STUDY_TTL));
+        studyCache.put(studyId, study);
         log.debug("Étude {} mise en cache", studyId);
     }
 
@@ -113,19 +125,18 @@ public class OrthancCache {
      */
     @SuppressWarnings("unchecked")
     public <T> T getSeries(String seriesId) {
-        CacheEntry<Object> entry = seriesCache.get(seriesId);
-        if (entry != null && !entry.isExpired()) {
+        Object series = seriesCache.getIfPresent(seriesId);
+        if (series != null) {
             log.debug("Cache hit pour la série {}", seriesId);
-            return (T) entry.getValue();
         }
-        return null;
+        return (T) series;
     }
 
     /**
      * Met en cache une série
      */
     public <T> void putSeries(String seriesId, T series) {
-        seriesCache.put(seriesId, new CacheEntry<>(series, SERIES_TTL));
+        seriesCache.put(seriesId, series);
         log.debug("Série {} mise en cache", seriesId);
     }
 
@@ -134,32 +145,42 @@ public class OrthancCache {
      */
     @SuppressWarnings("unchecked")
     public <T> T getInstance(String instanceId) {
-        CacheEntry<Object> entry = instanceCache.get(instanceId);
-        if (entry != null && !entry.isExpired()) {
+        Object instance = instanceCache.getIfPresent(instanceId);
+        if (instance != null) {
             log.debug("Cache hit pour l'instance {}", instanceId);
-            return (T) entry.getValue();
         }
-        return null;
+        return (T) instance;
     }
 
     /**
      * Met en cache une instance
      */
     public <T> void putInstance(String instanceId, T instance) {
-        instanceCache.put(instanceId, new CacheEntry<>(instance, INSTANCE_TTL));
+        instanceCache.put(instanceId, instance);
         log.debug("Instance {} mise en cache", instanceId);
     }
 
     /**
-     * Récupère une image du cache ou null si non présente/expirée
+     * Récupère une image du cache ou null si non présente/expirée.
+     * Un succès hors tas ou disque est recopié dans un tableau propre à l'appelant, sans être réinséré
+     * dans le cache du tas ; un succès disque est promu hors tas.
      */
     public byte[] getImage(String instanceId) {
-        CacheEntry<byte[]> entry = imageCache.get(instanceId);
-        if (entry != null && !entry.isExpired()) {
-            log.debug("Cache hit pour l'image de l'instance {}", instanceId);
-            return entry.getValue();
+        CachedImage image = imageCache.getIfPresent(instanceId);
+        if (image == null) {
+            image = offHeapImages.get(instanceId);
+        }
+        if (image == null && diskImages != null) {
+            image = diskImages.get(instanceId);
+            if (image != null) {
+                offHeapImages.put(instanceId, image);
+            }
         }
-        return null;
+        if (image == null) {
+            return null;
+        }
+        log.debug("Cache hit pour l'image de l'instance {}", instanceId);
+        return image.data();
     }
 
     /**
@@ -167,44 +188,144 @@ public class OrthancCache {
      */
     public void putImage(String instanceId, byte[] imageData) {
         if (imageData != null && imageData.length > 0) {
-            imageCache.put(instanceId, new CacheEntry<>(imageData, IMAGE_TTL));
+            imageCache.put(instanceId, new CachedImage(imageData, System.currentTimeMillis()));
             log.debug("Image pour l'instance {} mise en cache ({} octets)", instanceId, imageData.length);
         }
     }
 
+    /**
+     * Enregistre les enfants d'une ressource (séries d'une étude, instances d'une série)
+     */
+    public void linkChildren(String parentId, Collection<String> childIds) {
+        childrenIndex.get(parentId, id -> ConcurrentHashMap.newKeySet()).addAll(childIds);
+        childIds.forEach(childId -> parentIndex.put(childId, parentId));
+    }
+
     /**
      * Invalide une étude et toutes ses séries/instances associées
      */
     public void invalidateStudy(String studyId) {
-        studyCache.remove(studyId);
+        studyCache.invalidate(studyId);
+        Set<String> seriesIds = childrenIndex.asMap().remove(studyId);
+        if (seriesIds != null) {
+            seriesIds.forEach(this::evictSeriesTree);
+        }
         log.debug("Étude {} invalidée dans le cache", studyId);
     }
 
     /**
-     * Invalide une série et toutes ses instances associées
+     * Invalide une série et toutes ses instances associées, ainsi que l'étude qui l'agrège
      */
     public void invalidateSeries(String seriesId) {
-        seriesCache.remove(seriesId);
+        evictSeriesTree(seriesId);
+        String studyId = parentIndex.getIfPresent(seriesId);
+        if (studyId != null) {
+            studyCache.invalidate(studyId);
+        }
         log.debug("Série {} invalidée dans le cache", seriesId);
     }
 
     /**
-     * Invalide une instance et son image associée
+     * Invalide une instance et ses images associées, ainsi que la série et l'étude qui l'agrègent
      */
     public void invalidateInstance(String instanceId) {
-        instanceCache.remove(instanceId);
-        imageCache.remove(instanceId);
+        evictInstance(instanceId);
+        String seriesId = parentIndex.getIfPresent(instanceId);
+        if (seriesId != null) {
+            seriesCache.invalidate(seriesId);
+            String studyId = parentIndex.getIfPresent(seriesId);
+            if (studyId != null) {
+                studyCache.invalidate(studyId);
+            }
+        }
         log.debug("Instance {} et son image invalidées dans le cache", instanceId);
     }
 
+    private void evictSeriesTree(String seriesId) {
+        seriesCache.invalidate(seriesId);
+        Set<String> instanceIds = childrenIndex.asMap().remove(seriesId);
+        if (instanceIds != null) {
+            instanceIds.forEach(this::evictInstance);
+        }
+    }
+
+    private void evictInstance(String instanceId) {
+        instanceCache.invalidate(instanceId);
+        // Clés utilisées par OrthancService pour les aperçus et les images rendues
+        invalidateImage("preview_" + instanceId);
+        invalidateImage("image_" + instanceId);
+    }
+
+    private void invalidateImage(String key) {
+        imageCache.invalidate(key);
+        offHeapImages.invalidate(key);
+        if (diskImages != null) {
+            diskImages.invalidate(key);
+        }
+    }
+
     /**
      * Vide complètement le cache
      */
     public void clearCache() {
-        studyCache.clear();
-        seriesCache.clear();
-        instanceCache.clear();
-        imageCache.clear();
+        studyCache.invalidateAll();
+        seriesCache.invalidateAll();
+        instanceCache.invalidateAll();
+        imageCache.invalidateAll();
+        childrenIndex.invalidateAll();
+        parentIndex.invalidateAll();
+        offHeapImages.clear();
+        if (diskImages != null) {
+            diskImages.clear();
+        }
         log.info("Cache Orthanc vidé");
     }
+
+    /**
+     * Statistiques par cache (hits, misses, évictions, taille), exposées par l'endpoint actuator
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("studies", describe(studyCache));
+        statistics.put("series", describe(seriesCache));
+        statistics.put("instances", describe(instanceCache));
+        statistics.put("images", describe(imageCache));
+        statistics.put("offHeapImages", describeTier(offHeapImages.size(), offHeapImages.bytes(),
+                offHeapImages.maxBytes(), offHeapImages.hits(), offHeapImages.misses()));
+        if (diskImages != null) {
+            statistics.put("diskImages", describeTier(diskImages.size(), diskImages.bytes(),
+                    diskImages.maxBytes(), diskImages.hits(), diskImages.misses()));
+        }
+        return statistics;
+    }
+
+    private static Map<String, Object> describe(Cache<String, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("entries", cache.estimatedSize());
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictions", stats.evictionCount());
+        cache.policy().eviction().ifPresent(eviction -> {
+            if (eviction.isWeighted()) {
+                description.put("bytes", eviction.weightedSize().orElse(0L));
+                description.put("maxBytes", eviction.getMaximum());
+                description.put("evictedBytes", stats.evictionWeight());
+            } else {
+                description.put("maxEntries", eviction.getMaximum());
+            }
+        });
+        return description;
+    }
+
+    private static Map<String, Object> describeTier(long entries, long bytes, long maxBytes, long hits, long misses) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("entries", entries);
+        description.put("hits", hits);
+        description.put("misses", misses);
+        description.put("bytes", bytes);
+        description.put("maxBytes", maxBytes);
+        return description;
+    }
 }
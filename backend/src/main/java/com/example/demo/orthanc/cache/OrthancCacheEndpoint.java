@@ -0,0 +1,24 @@
+package com.example.demo.orthanc.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Endpoint actuator /actuator/orthanccache : compteurs du cache Orthanc
+ */
+@Component
+@Endpoint(id = "orthanccache")
+@RequiredArgsConstructor
+public class OrthancCacheEndpoint {
+
+    private final OrthancCache orthancCache;
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        return orthancCache.getStatistics();
+    }
+}
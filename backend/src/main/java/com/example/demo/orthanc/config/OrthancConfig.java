@@ -1,15 +1,27 @@
 package com.example.demo.orthanc.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Base64;
 
+@Slf4j
 @Configuration
 public class OrthancConfig {
 
@@ -30,22 +42,63 @@ public class OrthancConfig {
     public String getOrthancApiUrl() {
         return orthancApiUrl;
     }
-    
+
+    /**
+     * Pool de connexions keep-alive partagé par tout le trafic vers Orthanc.
+     * Orthanc étant l'unique route, la limite par route est égale à la limite globale.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager orthancConnectionManager(OrthancProperties orthancProperties) {
+        OrthancProperties.Api api = orthancProperties.getApi();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(api.getMaxConnections())
+                .setMaxConnPerRoute(api.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(api.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(api.getTimeout()))
+                        // Revalider une connexion restée inactive avant de la réutiliser
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient orthancHttpClient(PoolingHttpClientConnectionManager orthancConnectionManager,
+                                                 OrthancProperties orthancProperties) {
+        OrthancProperties.Api api = orthancProperties.getApi();
+        TimeValue keepAlive = TimeValue.ofMilliseconds(api.getKeepAlive());
+        return HttpClients.custom()
+                .setConnectionManager(orthancConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // Attente maximale d'une connexion libre dans le pool
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(api.getConnectTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                // Éviction en arrière-plan des connexions inactives ou expirées
+                .evictIdleConnections(keepAlive)
+                .evictExpiredConnections()
+                .build();
+    }
+
     @Bean
-    public RestTemplate orthancRestTemplate() {
-        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(5000);
-        requestFactory.setReadTimeout(30000);
-        
-        RestTemplate restTemplate = new RestTemplate(requestFactory);
-        
-        // Ajouter des logs pour le débogage
-        System.out.println("Orthanc RestTemplate configuré avec URL: " + orthancApiUrl);
-        System.out.println("Authentification: " + orthancUsername + ":*****");
-        
+    public RestTemplate orthancRestTemplate(CloseableHttpClient orthancHttpClient, OrthancProperties orthancProperties) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(orthancHttpClient));
+
+        log.info("Orthanc RestTemplate configuré avec URL: {} (pool de {} connexions)",
+                orthancApiUrl, orthancProperties.getApi().getMaxConnections());
+        log.info("Authentification: {}:*****", orthancUsername);
+
         return restTemplate;
     }
-    
+
+    /**
+     * Expose les statistiques du pool (connexions disponibles, louées, en attente) via Micrometer
+     */
+    @Bean
+    public MeterBinder orthancConnectionPoolMetrics(PoolingHttpClientConnectionManager orthancConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(orthancConnectionManager, "orthanc");
+    }
+
     public HttpHeaders createBasicAuthHeaders() {
         HttpHeaders headers = new HttpHeaders();
         String auth = orthancUsername + ":" + orthancPassword;
@@ -54,4 +107,4 @@ public class OrthancConfig {
         headers.set("Authorization", authHeader);
         return headers;
     }
-}
\ No newline at end of file
+}
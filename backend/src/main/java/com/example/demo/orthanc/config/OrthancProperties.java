@@ -11,14 +11,24 @@ public class OrthancProperties {
     private Api api = new Api();
     private Dicom dicom = new Dicom();
     private Security security = new Security();
+    private Hydration hydration = new Hydration();
+    private Cache cache = new Cache();
+    private Changes changes = new Changes();
+    private Audit audit = new Audit();
 
     @Data
     public static class Api {
         private String url;
         private String username;
         private String password;
+        // Taille du pool de connexions HTTP (une seule route: le serveur Orthanc)
         private int maxConnections = 20;
+        // Délai de lecture (ms)
         private int timeout = 30000;
+        // Délai d'établissement de connexion (ms)
+        private int connectTimeout = 5000;
+        // Durée (ms) de conservation d'une connexion inactive dans le pool
+        private long keepAlive = 30000;
     }
 
     @Data
@@ -34,4 +44,76 @@ public class OrthancProperties {
         private String encryptionKey;
         private boolean anonymizeHeaders = true;
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class Hydration {
+        // Nombre maximal d'appels simultanés vers Orthanc lors de l'hydratation des études
+        private int parallelism = 16;
+        // Délai maximal (ms) accordé à une étude consultée seule pour charger ses séries et instances
+        private long studyTimeout = 15000;
+        // Échéance globale (ms) de la liste des études : les études encore en attente d'un slot
+        // à son expiration sont omises de la réponse et leur chargement est annulé
+        private long listingTimeout = 30000;
+        // Attente maximale (ms) d'un appelant sur un chargement identique déjà en cours
+        private long sharedLoadTimeout = 60000;
+    }
+
+    @Data
+    public static class Cache {
+        // Nombre maximal d'entrées par cache de métadonnées (études, séries, instances)
+        private long metadataMaxEntries = 10000;
+        // Poids maximal (octets) du cache d'images sur le tas
+        private long imageMaxBytes = 64L * 1024 * 1024;
+        // Second niveau hors tas (ByteBuffer directs) alimenté par les évictions du tas, 0 pour désactiver
+        private long offHeapMaxBytes = 256L * 1024 * 1024;
+        // Troisième niveau sur disque local (un fichier par image, non chiffré), conservé entre deux redémarrages.
+        // Désactivé par défaut : il exige un répertoire dédié, restreint au compte du service (0700)
+        private boolean diskEnabled = false;
+        private String diskPath;
+        private long diskMaxBytes = 2L * 1024 * 1024 * 1024;
+        // Durées de vie (ms)
+        private long studyTtl = 5 * 60 * 1000;
+        private long seriesTtl = 5 * 60 * 1000;
+        private long instanceTtl = 10 * 60 * 1000;
+        // Appliquée aux trois niveaux d'images, depuis la première mise en cache
+        private long imageTtl = 15 * 60 * 1000;
+        // Taille maximale de l'index parent/enfants utilisé pour les invalidations en cascade
+        private long indexMaxEntries = 200000;
+    }
+
+    @Data
+    public static class Changes {
+        // Suivi du flux /changes d'Orthanc pour invalider le cache au fil de l'eau
+        private boolean enabled = false;
+        // Intervalle entre deux interrogations (ms)
+        private long pollInterval = 5000;
+        // Nombre de changements lus par requête
+        private int batchSize = 100;
+        // Recharger les études et séries stables au lieu de simplement les invalider
+        private boolean prewarm = false;
+    }
+
+    @Data
+    public static class Audit {
+        // Nombre maximal d'événements d'audit en attente d'écriture
+        private int queueCapacity = 10000;
+        // Nombre d'événements écrits par lot JDBC
+        private int batchSize = 200;
+        // Délai maximal (ms) avant l'écriture d'un lot incomplet
+        private long flushInterval = 1000;
+        // Comportement lorsque la file est pleine
+        private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+        // Fichier JSON lines recevant les événements débordés, rejoués dès que la file se vide
+        private String spillFile = System.getProperty("java.io.tmpdir") + "/dicom-audit-spill.jsonl";
+        // Après un échec d'écriture, délai (ms) avant de réessayer la base, doublé à chaque nouvel échec
+        private long retryInitialBackoff = 1000;
+        private long retryMaxBackoff = 60000;
+
+        public enum OverflowPolicy {
+            // L'appelant attend qu'une place se libère
+            BLOCK,
+            // L'événement est écrit dans le fichier de débordement
+            SPILL
+        }
+    }
+}
@@ -1,53 +1,120 @@
 package com.example.demo.orthanc.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import com.example.demo.orthanc.config.OrthancConfig;
+import com.example.demo.orthanc.util.OrthancStreamUtils;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Reverse proxy DICOMweb vers Orthanc.
+ * Les corps (frames WADO-RS, bulk data, multipart/related) sont transmis en flux sans être
+ * matérialisés en mémoire, et les en-têtes de négociation, de plage et de validation
+ * conditionnelle sont relayés dans les deux sens.
+ */
 @RestController
 @RequestMapping("/api/v1/dicomweb")
 @RequiredArgsConstructor
 public class DicomWebProxyController {
 
+    // En-têtes de la requête cliente transmis à Orthanc
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(
+            HttpHeaders.ACCEPT,
+            HttpHeaders.RANGE,
+            HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE);
+
+    // En-têtes de la réponse Orthanc renvoyés au client (Content-Type conserve la boundary multipart)
+    private static final List<String> FORWARDED_RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.EXPIRES);
+
     private final RestTemplate orthancRestTemplate; // Bean defined in OrthancConfig
     private final OrthancConfig orthancConfig;
 
     @RequestMapping(value = "/**", method = {RequestMethod.GET, RequestMethod.HEAD, RequestMethod.OPTIONS})
-    public ResponseEntity<byte[]> proxy(HttpServletRequest request, @RequestHeader HttpHeaders incomingHeaders) {
-        // Build target URL by stripping prefix
+    public void proxy(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+            addCorsHeaders(response);
+            response.setHeader(HttpHeaders.ALLOW, "GET,HEAD,OPTIONS");
+            response.setStatus(HttpStatus.OK.value());
+            return;
+        }
+
+        // Build target URL by stripping prefix (URI et query string restent encodés tels quels)
         String forwardPath = request.getRequestURI().replaceFirst("/api/v1/dicomweb", "");
         String query = request.getQueryString();
-        String targetUrl = orthancConfig.getOrthancApiUrl() + "/dicom-web" + forwardPath + (query != null ? ("?" + query) : "");
+        URI targetUrl = URI.create(orthancConfig.getOrthancApiUrl() + "/dicom-web" + forwardPath + (query != null ? ("?" + query) : ""));
+        HttpMethod method = HttpMethod.HEAD.matches(request.getMethod()) ? HttpMethod.HEAD : HttpMethod.GET;
 
         // Copy relevant headers and add Basic Auth
         HttpHeaders headers = orthancConfig.createBasicAuthHeaders();
-        headers.setAccept(incomingHeaders.getAccept());
-        headers.set("Accept","*/*");
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.set(name, value);
+            }
+        }
 
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
         try {
-            ResponseEntity<byte[]> response = orthancRestTemplate.exchange(
+            orthancRestTemplate.execute(
                     targetUrl,
-                    HttpMethod.GET,
-                    entity,
-                    byte[].class);
-
-            // Pass through status and headers (Content-Type, etc.)
-            HttpHeaders respHeaders = new HttpHeaders();
-            respHeaders.setContentType(response.getHeaders().getContentType());
-            respHeaders.setCacheControl(response.getHeaders().getCacheControl());
-            respHeaders.setContentLength(response.getBody() != null ? response.getBody().length : 0);
-            respHeaders.add("Access-Control-Allow-Origin", "*");
-            respHeaders.add("Access-Control-Allow-Headers", "Authorization,Content-Type,Accept");
-            respHeaders.add("Access-Control-Allow-Methods", "GET,OPTIONS,HEAD");
-            return new ResponseEntity<>(response.getBody(), respHeaders, response.getStatusCode());
+                    method,
+                    orthancRequest -> orthancRequest.getHeaders().putAll(headers),
+                    orthancResponse -> {
+                        // Pass through status and headers (Content-Type, ETag, etc.)
+                        for (String name : FORWARDED_RESPONSE_HEADERS) {
+                            OrthancStreamUtils.copyHeader(orthancResponse.getHeaders(), name, response);
+                        }
+                        addCorsHeaders(response);
+
+                        int status = orthancResponse.getStatusCode().value();
+                        if (status == HttpStatus.NOT_MODIFIED.value() || method == HttpMethod.HEAD) {
+                            OrthancStreamUtils.copyHeader(orthancResponse.getHeaders(), HttpHeaders.CONTENT_LENGTH, response);
+                            response.setStatus(status);
+                            return null;
+                        }
+                        OrthancStreamUtils.relayBody(orthancResponse, request.getHeader(HttpHeaders.RANGE), response);
+                        return null;
+                    });
+        } catch (HttpStatusCodeException ex) {
+            // Relayer les erreurs d'Orthanc (404, 406...) avec leur statut d'origine
+            if (!response.isCommitted()) {
+                response.reset();
+                addCorsHeaders(response);
+                response.setStatus(ex.getStatusCode().value());
+                MediaType contentType = ex.getResponseHeaders() != null ? ex.getResponseHeaders().getContentType() : null;
+                if (contentType != null) {
+                    response.setContentType(contentType.toString());
+                }
+                response.getOutputStream().write(ex.getResponseBodyAsByteArray());
+            }
         } catch (RestClientException ex) {
-            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+            if (!response.isCommitted()) {
+                response.reset();
+                addCorsHeaders(response);
+                response.setStatus(HttpStatus.BAD_GATEWAY.value());
+            }
         }
     }
+
+    private void addCorsHeaders(HttpServletResponse response) {
+        response.setHeader("Access-Control-Allow-Origin", "*");
+        response.setHeader("Access-Control-Allow-Headers", "Authorization,Content-Type,Accept,Range,If-None-Match,If-Modified-Since");
+        response.setHeader("Access-Control-Allow-Methods", "GET,OPTIONS,HEAD");
+        response.setHeader("Access-Control-Expose-Headers", "Content-Length,Content-Range,Accept-Ranges,ETag,Last-Modified");
+    }
 }
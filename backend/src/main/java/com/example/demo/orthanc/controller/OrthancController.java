@@ -2,7 +2,10 @@ package com.example.demo.orthanc.controller;
 
 import com.example.demo.orthanc.dto.*;
 import com.example.demo.orthanc.service.OrthancService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -11,6 +14,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -20,6 +24,8 @@ public class OrthancController {
 
     private final OrthancService orthancService;
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @PostMapping("/upload")
     @PreAuthorize("hasAnyRole('DOCTOR', 'ADMIN')")
     public ResponseEntity<OrthancResponse> uploadDicomFile(
@@ -36,13 +42,23 @@ public class OrthancController {
 
     @GetMapping("/studies")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<List<DicomStudyDTO>> getAllStudies(
-            @RequestParam(required = false) String patientId) {
+    public ResponseEntity<List<DicomStudySummaryDTO>> getAllStudies(
+            @RequestParam(required = false) String patientId,
+            @RequestParam(required = false) String modality,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         System.out.println("Requête reçue pour /api/v1/dicom/studies avec patientId = " + patientId);
         try {
-            List<DicomStudyDTO> studies = orthancService.getStudies();
-            System.out.println("Nombre d'études récupérées : " + (studies != null ? studies.size() : 0));
-            return ResponseEntity.ok(studies);
+            // Borner la pagination pour garder des réponses de taille raisonnable
+            int pageIndex = Math.max(page, 0);
+            int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+            DicomStudyPageDTO studies = orthancService.findStudies(patientId, modality, from, to, pageIndex, pageSize);
+            System.out.println("Nombre d'études récupérées : " + studies.getContent().size());
+            return ResponseEntity.ok()
+                    .header(DicomStudyPageDTO.HAS_NEXT_HEADER, String.valueOf(studies.isHasNext()))
+                    .body(studies.getContent());
         } catch (Exception e) {
             System.err.println("Erreur lors de la récupération des études : " + e.getMessage());
             e.printStackTrace();
@@ -159,31 +175,37 @@ public class OrthancController {
 
     @GetMapping(value = "/instances/{instanceId}/file")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<byte[]> getInstanceFile(@PathVariable String instanceId) {
+    public void getInstanceFile(
+            @PathVariable String instanceId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletResponse response) {
+        response.setContentType("application/dicom");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.builder("attachment")
+                .filename("instance_" + instanceId + ".dcm")
+                .build()
+                .toString());
+
+        // Ajouter des en-têtes de cache pour éviter les requêtes répétées
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=86400"); // Cache côté client pendant 24h
+
+        // Ajout d'en-têtes CORS pour permettre l'accès depuis n'importe quelle origine
+        response.addHeader("Access-Control-Allow-Origin", "*");
+        response.addHeader("Access-Control-Allow-Methods", "GET, OPTIONS");
+        response.addHeader("Access-Control-Allow-Headers", "Content-Type, Authorization, Range");
+        response.addHeader("Access-Control-Expose-Headers", "Content-Length, Content-Range, Accept-Ranges");
+
+        // Ajouter un en-tête Vary pour indiquer que la réponse peut varier en fonction de l'en-tête Accept
+        response.addHeader("Vary", "Accept");
+
         try {
-            byte[] dicomData = orthancService.getInstanceDicomFile(instanceId);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("application/dicom"));
-            headers.setContentDisposition(org.springframework.http.ContentDisposition.builder("attachment")
-                    .filename("instance_" + instanceId + ".dcm")
-                    .build());
-            
-            // Ajouter des en-têtes de cache pour éviter les requêtes répétées
-            headers.setCacheControl("public, max-age=86400"); // Cache côté client pendant 24h
-            
-            // Ajout d'en-têtes CORS pour permettre l'accès depuis n'importe quelle origine
-            headers.add("Access-Control-Allow-Origin", "*");
-            headers.add("Access-Control-Allow-Methods", "GET, OPTIONS");
-            headers.add("Access-Control-Allow-Headers", "Content-Type, Authorization");
-            
-            // Ajouter un en-tête Vary pour indiquer que la réponse peut varier en fonction de l'en-tête Accept
-            headers.add("Vary", "Accept");
-            
-            return new ResponseEntity<>(dicomData, headers, HttpStatus.OK);
+            // Le fichier est recopié en flux depuis Orthanc, sans passer par un tableau en mémoire
+            orthancService.streamInstanceDicomFile(instanceId, range, response);
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
         }
     }
-}
\ No newline at end of file
+}
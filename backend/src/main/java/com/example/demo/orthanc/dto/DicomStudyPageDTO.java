@@ -0,0 +1,15 @@
+package com.example.demo.orthanc.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class DicomStudyPageDTO {
+    // La liste est renvoyée telle quelle (tableau JSON), la présence d'une page suivante passe par cet en-tête
+    public static final String HAS_NEXT_HEADER = "X-Has-Next";
+
+    private List<DicomStudySummaryDTO> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
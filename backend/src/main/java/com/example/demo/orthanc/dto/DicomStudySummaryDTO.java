@@ -0,0 +1,19 @@
+package com.example.demo.orthanc.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Vue allégée d'une étude pour les listes paginées (sans séries ni instances)
+ */
+@Data
+public class DicomStudySummaryDTO {
+    private String id;
+    private String patientName;
+    private String patientId;
+    private String studyDescription;
+    private LocalDateTime studyDate;
+    private List<String> modalities;
+    private Integer seriesCount;
+}
@@ -1,10 +1,10 @@
 package com.example.demo.orthanc.security;
 
 import com.example.demo.orthanc.model.DicomAuditLog;
-import com.example.demo.orthanc.repository.DicomAuditLogRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -14,23 +14,28 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class DicomAuditService {
     
-    private final DicomAuditLogRepository auditLogRepository;
+    private final DicomAuditWriter auditWriter;
 
+    /**
+     * Enregistre un accès DICOM. Les informations de la requête (IP, User-Agent) sont lues
+     * sur le thread appelant ; l'insertion en base est faite en arrière-plan par lots.
+     */
     public void logAccess(String userId, String dicomId, String action, String result) {
-        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes())
-                .getRequest();
-
-        DicomAuditLog auditLog = DicomAuditLog.builder()
+        DicomAuditLog.DicomAuditLogBuilder auditLog = DicomAuditLog.builder()
                 .userId(userId)
                 .dicomId(dicomId)
                 .action(action)
                 .result(result)
-                .timestamp(LocalDateTime.now())
-                .ipAddress(getClientIp(request))
-                .userAgent(request.getHeader("User-Agent"))
-                .build();
+                .timestamp(LocalDateTime.now());
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            auditLog.ipAddress(getClientIp(request))
+                    .userAgent(request.getHeader("User-Agent"));
+        }
 
-        auditLogRepository.save(auditLog);
+        auditWriter.enqueue(auditLog.build());
     }
 
     private String getClientIp(HttpServletRequest request) {
@@ -40,4 +45,4 @@ public class DicomAuditService {
         }
         return request.getRemoteAddr();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,260 @@
+package com.example.demo.orthanc.security;
+
+import com.example.demo.orthanc.config.OrthancProperties;
+import com.example.demo.orthanc.model.DicomAuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Écriture asynchrone du journal d'audit DICOM.
+ * Les événements sont placés dans une file bornée sans verrou puis insérés par lots JDBC
+ * par un thread dédié, dès qu'un lot est plein ou que l'intervalle de flush est écoulé.
+ * Aucun événement n'est perdu : file pleine, échec d'écriture ou arrêt en cours, il est
+ * reporté dans un fichier de débordement rejoué ultérieurement.
+ * Tant que la base est indisponible, les lots vont directement au fichier et ni l'écriture
+ * ni le rejeu ne sont retentés avant un délai qui double à chaque échec.
+ */
+@Slf4j
+@Component
+public class DicomAuditWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO dicom_audit_logs "
+            + "(user_id, dicom_id, action, result, timestamp, ip_address, user_agent) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrthancProperties.Audit config;
+    private final Path spillFile;
+
+    private final Queue<DicomAuditLog> queue = new ConcurrentLinkedQueue<>();
+    // Taille de la file (ConcurrentLinkedQueue.size() est en O(n))
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Échecs d'écriture consécutifs et instant (ms) avant lequel la base n'est pas retentée
+    private int consecutiveFailures;
+    private volatile long retryAt;
+
+    public DicomAuditWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, OrthancProperties orthancProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.config = orthancProperties.getAudit();
+        this.spillFile = Path.of(config.getSpillFile());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = Thread.ofPlatform().name("dicom-audit-writer").daemon(true).start(this::runWriter);
+        log.info("Journal d'audit DICOM asynchrone démarré (file de {} événements, lots de {})",
+                config.getQueueCapacity(), config.getBatchSize());
+    }
+
+    /**
+     * Ajoute un événement à la file sans bloquer, sauf si la file est pleine et la politique BLOCK
+     */
+    public void enqueue(DicomAuditLog auditLog) {
+        if (!running) {
+            // Arrêt en cours : le fichier de débordement sera rejoué au prochain démarrage
+            spill(List.of(auditLog));
+            return;
+        }
+        while (!tryReserve()) {
+            if (config.getOverflowPolicy() == OrthancProperties.Audit.OverflowPolicy.SPILL) {
+                spill(List.of(auditLog));
+                return;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        queue.offer(auditLog);
+        if (!running) {
+            // L'arrêt a commencé entre-temps : ne pas laisser l'événement dans la file
+            drain();
+        } else if (queued.get() >= config.getBatchSize()) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = queued.get();
+            if (current >= config.getQueueCapacity()) {
+                return false;
+            }
+        } while (!queued.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void runWriter() {
+        while (running) {
+            if (queued.get() < config.getBatchSize()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(config.getFlushInterval()));
+            }
+            drain();
+            if (queued.get() == 0 && !backingOff() && Files.exists(spillFile)) {
+                replaySpill();
+            }
+        }
+    }
+
+    private boolean backingOff() {
+        return System.currentTimeMillis() < retryAt;
+    }
+
+    /**
+     * Écrit tous les événements en attente, lot par lot
+     */
+    private void drain() {
+        List<DicomAuditLog> batch = new ArrayList<>(config.getBatchSize());
+        DicomAuditLog auditLog;
+        while ((auditLog = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(auditLog);
+            if (batch.size() >= config.getBatchSize()) {
+                write(batch);
+                batch = new ArrayList<>(config.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<DicomAuditLog> batch) {
+        if (backingOff()) {
+            spill(batch);
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, auditLog) -> {
+                ps.setString(1, auditLog.getUserId());
+                ps.setString(2, auditLog.getDicomId());
+                ps.setString(3, auditLog.getAction());
+                ps.setString(4, auditLog.getResult());
+                ps.setTimestamp(5, auditLog.getTimestamp() != null ? Timestamp.valueOf(auditLog.getTimestamp()) : null);
+                ps.setString(6, auditLog.getIpAddress());
+                ps.setString(7, auditLog.getUserAgent());
+            });
+            log.debug("{} événements d'audit DICOM écrits", batch.size());
+            recordSuccess();
+        } catch (Exception e) {
+            long backoff = recordFailure();
+            log.error("Échec de l'écriture de {} événements d'audit, report dans {}, nouvel essai dans {} ms: {}",
+                    batch.size(), spillFile, backoff, e.getMessage());
+            spill(batch);
+        }
+    }
+
+    private synchronized void recordSuccess() {
+        if (consecutiveFailures > 0) {
+            log.info("Base d'audit DICOM de nouveau disponible après {} échecs", consecutiveFailures);
+        }
+        consecutiveFailures = 0;
+        retryAt = 0;
+    }
+
+    private synchronized long recordFailure() {
+        consecutiveFailures++;
+        long backoff = Math.min(config.getRetryMaxBackoff(),
+                config.getRetryInitialBackoff() << Math.min(consecutiveFailures - 1, 20));
+        retryAt = System.currentTimeMillis() + backoff;
+        return backoff;
+    }
+
+    /**
+     * Ajoute des événements au fichier de débordement (une ligne JSON par événement)
+     */
+    private synchronized void spill(List<DicomAuditLog> auditLogs) {
+        try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (DicomAuditLog auditLog : auditLogs) {
+                writer.write(objectMapper.writeValueAsString(auditLog));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            log.error("Impossible d'écrire {} événements d'audit dans {}", auditLogs.size(), spillFile, e);
+        }
+    }
+
+    /**
+     * Rejoue le fichier de débordement ; les lots en échec y sont réécrits par write()
+     */
+    private void replaySpill() {
+        Path replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+        List<String> lines;
+        synchronized (this) {
+            try {
+                Files.move(spillFile, replayFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                lines = Files.readAllLines(replayFile, StandardCharsets.UTF_8);
+                Files.delete(replayFile);
+            } catch (IOException e) {
+                log.error("Impossible de relire le fichier de débordement d'audit {}", spillFile, e);
+                return;
+            }
+        }
+
+        List<DicomAuditLog> batch = new ArrayList<>(config.getBatchSize());
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(objectMapper.readValue(line, DicomAuditLog.class));
+            } catch (IOException e) {
+                log.warn("Ligne d'audit illisible ignorée: {}", line);
+                continue;
+            }
+            if (batch.size() >= config.getBatchSize()) {
+                write(batch);
+                batch = new ArrayList<>(config.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        log.info("{} événements d'audit rejoués depuis {}", lines.size(), spillFile);
+    }
+
+    /**
+     * Vide la file avant l'arrêt de l'application
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+        log.info("Journal d'audit DICOM arrêté, file vidée");
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.orthanc.service;
+
+import com.example.demo.orthanc.cache.OrthancCache;
+import com.example.demo.orthanc.config.OrthancConfig;
+import com.example.demo.orthanc.config.OrthancProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suit le flux /changes d'Orthanc et invalide (ou recharge) les entrées du cache concernées.
+ * Le curseur démarre au dernier changement connu au lancement : l'historique n'est pas rejoué.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "orthanc.changes", name = "enabled", havingValue = "true")
+public class OrthancChangesPoller {
+
+    private final RestTemplate orthancRestTemplate;
+    private final OrthancConfig orthancConfig;
+    private final OrthancProperties orthancProperties;
+    private final OrthancCache orthancCache;
+    private final OrthancService orthancService;
+
+    // Numéro de séquence du dernier changement traité, null tant qu'il n'est pas initialisé
+    private Long lastSeq;
+
+    @Scheduled(fixedDelayString = "${orthanc.changes.poll-interval:5000}")
+    public void poll() {
+        try {
+            if (lastSeq == null) {
+                lastSeq = toLong(fetch("/changes?last").get("Last"));
+                log.info("Suivi des changements Orthanc à partir de la séquence {}", lastSeq);
+                return;
+            }
+
+            boolean done = false;
+            while (!done) {
+                Map<String, Object> page = fetch("/changes?since=" + lastSeq
+                        + "&limit=" + orthancProperties.getChanges().getBatchSize());
+                Object changes = page.get("Changes");
+                if (changes instanceof List<?> list) {
+                    for (Object change : list) {
+                        if (change instanceof Map<?, ?> map) {
+                            apply(map);
+                        }
+                    }
+                }
+                lastSeq = toLong(page.get("Last"));
+                done = !Boolean.FALSE.equals(page.get("Done"));
+            }
+        } catch (RestClientException e) {
+            log.warn("Lecture du flux /changes d'Orthanc impossible: {}", e.getMessage());
+        }
+    }
+
+    private void apply(Map<?, ?> change) {
+        String changeType = String.valueOf(change.get("ChangeType"));
+        String resourceType = String.valueOf(change.get("ResourceType"));
+        String id = String.valueOf(change.get("ID"));
+        log.debug("Changement Orthanc {} sur {} {}", changeType, resourceType, id);
+
+        switch (changeType) {
+            case "StableStudy" -> {
+                orthancCache.invalidateStudy(id);
+                prewarm(() -> orthancService.getStudy(id));
+            }
+            case "StableSeries" -> {
+                orthancCache.invalidateSeries(id);
+                prewarm(() -> orthancService.getSeries(id));
+            }
+            case "NewInstance", "UpdatedAttachment", "UpdatedMetadata" -> {
+                if ("Instance".equals(resourceType)) {
+                    orthancCache.invalidateInstance(id);
+                }
+            }
+            case "NewSeries" -> orthancCache.invalidateSeries(id);
+            case "NewStudy" -> orthancCache.invalidateStudy(id);
+            case "Deleted" -> {
+                switch (resourceType) {
+                    case "Study" -> orthancCache.invalidateStudy(id);
+                    case "Series" -> orthancCache.invalidateSeries(id);
+                    case "Instance" -> orthancCache.invalidateInstance(id);
+                    case "Patient" -> {
+                        // Le cache n'indexe pas les études par patient : tout est vidé pour ne rien servir
+                        // d'un patient supprimé (les suppressions de patients restent rares)
+                        log.info("Patient Orthanc {} supprimé, vidage du cache", id);
+                        orthancCache.clearCache();
+                    }
+                    default -> {
+                        // Autres ressources sans entrée dans le cache
+                    }
+                }
+            }
+            default -> {
+                // Changement sans effet sur le cache
+            }
+        }
+    }
+
+    private void prewarm(Runnable loader) {
+        if (!orthancProperties.getChanges().isPrewarm()) {
+            return;
+        }
+        try {
+            loader.run();
+        } catch (RuntimeException e) {
+            log.warn("Préchargement du cache Orthanc impossible: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, Object> fetch(String path) {
+        Map<String, Object> body = orthancRestTemplate.exchange(
+                orthancConfig.getOrthancApiUrl() + path,
+                HttpMethod.GET,
+                new HttpEntity<>(orthancConfig.createBasicAuthHeaders()),
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+        ).getBody();
+        return body != null ? body : Map.of();
+    }
+
+    private Long toLong(Object value) {
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        return lastSeq != null ? lastSeq : 0L;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.orthanc.service;
+
+import com.example.demo.orthanc.config.OrthancProperties;
+import com.example.demo.orthanc.exception.OrthancException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Exécuteur borné pour l'hydratation concurrente des études, séries et instances Orthanc.
+ * Chaque branche s'exécute sur un thread virtuel ; seul le nombre d'appels HTTP simultanés
+ * vers Orthanc est limité (orthanc.hydration.parallelism), ce qui évite tout interblocage
+ * entre un parent qui attend ses enfants et les enfants qui attendent un slot.
+ */
+@Slf4j
+@Component
+public class OrthancHydrationExecutor {
+
+    /**
+     * Résultat d'un fan-out : les valeurs obtenues dans l'ordre des identifiants et
+     * un indicateur précisant si toutes les branches ont abouti dans le délai imparti.
+     */
+    public record FanOutResult<T>(List<T> values, boolean complete) {
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    public OrthancHydrationExecutor(OrthancProperties orthancProperties) {
+        int parallelism = Math.max(1, orthancProperties.getHydration().getParallelism());
+        this.permits = new Semaphore(parallelism, true);
+        log.info("Hydratation Orthanc limitée à {} appels simultanés", parallelism);
+    }
+
+    /**
+     * Exécute un appel vers Orthanc en respectant la limite de parallélisme
+     */
+    public <T> T call(Supplier<T> orthancCall) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrthancException("Interrompu en attente d'un slot d'appel Orthanc", e);
+        }
+        try {
+            return orthancCall.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Charge chaque identifiant en parallèle et attend au plus jusqu'à {@code deadline}.
+     * Les branches en échec, sans résultat (null) ou hors délai sont ignorées et le résultat est
+     * marqué incomplet ; les branches hors délai sont annulées (interrompues) pour ne pas occuper
+     * indéfiniment un slot d'appel Orthanc.
+     */
+    public <T> FanOutResult<T> fanOut(List<String> ids, Function<String, T> loader, Instant deadline) {
+        List<Future<T>> futures = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            futures.add(executor.submit(() -> loader.apply(id)));
+        }
+
+        List<T> values = new ArrayList<>(ids.size());
+        boolean complete = true;
+        for (int i = 0; i < futures.size(); i++) {
+            long remainingNanos = Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+            try {
+                T value = futures.get(i).get(remainingNanos, TimeUnit.NANOSECONDS);
+                if (value != null) {
+                    values.add(value);
+                } else {
+                    complete = false;
+                    log.warn("Ressource Orthanc {} introuvable, résultat partiel", ids.get(i));
+                }
+            } catch (TimeoutException e) {
+                complete = false;
+                futures.get(i).cancel(true);
+                log.warn("Délai dépassé pour la ressource Orthanc {}, chargement annulé, résultat partiel", ids.get(i));
+            } catch (ExecutionException e) {
+                complete = false;
+                log.error("Erreur lors de la récupération de la ressource Orthanc {}: {}",
+                        ids.get(i), e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.subList(i, futures.size()).forEach(f -> f.cancel(true));
+                return new FanOutResult<>(values, false);
+            }
+        }
+        return new FanOutResult<>(values, complete);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
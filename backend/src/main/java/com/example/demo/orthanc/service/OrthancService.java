@@ -3,6 +3,9 @@ package com.example.demo.orthanc.service;
 import com.example.demo.orthanc.cache.OrthancCache;
 import com.example.demo.orthanc.config.OrthancProperties;
 import com.example.demo.orthanc.dto.*;
+import com.example.demo.orthanc.exception.OrthancException;
+import com.example.demo.orthanc.util.OrthancStreamUtils;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.ParameterizedTypeReference;
@@ -10,11 +13,22 @@ import org.springframework.http.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
 import java.util.*;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import com.example.demo.orthanc.security.DicomEncryptionService;
 import com.example.demo.orthanc.security.DicomAuditService;
@@ -28,6 +42,16 @@ public class OrthancService {
     private final DicomEncryptionService encryptionService;
     private final DicomAuditService auditService;
     private final OrthancCache orthancCache;
+    private final OrthancHydrationExecutor hydrationExecutor;
+
+    // Marge laissée aux niveaux imbriqués pour rendre leur résultat partiel avant l'échéance du parent
+    private static final Duration NESTED_DEADLINE_MARGIN = Duration.ofMillis(200);
+
+    // Format des dates DICOM: YYYYMMDD
+    private static final DateTimeFormatter DICOM_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Chargements Orthanc en cours, partagés par les requêtes concurrentes sur la même clé (single-flight)
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
 
     public OrthancResponse uploadDicomFile(MultipartFile file) {
         try {
@@ -110,25 +134,22 @@ public class OrthancService {
                 System.out.println("Réponse d'Orthanc - Status: " + response.getStatusCode());
                 System.out.println("Réponse d'Orthanc - Ids d'études: " + studyIds);
                 
-                List<DicomStudyDTO> studies = new ArrayList<>();
-                
-                if (studyIds != null) {
-                    for (String studyId : studyIds) {
-                        try {
-                            System.out.println("Récupération des détails de l'étude: " + studyId);
-                            DicomStudyDTO study = getStudy(studyId);
-                            if (study != null) {
-                                studies.add(study);
-                            }
-                        } catch (Exception e) {
-                            log.error("Erreur lors de la récupération des détails de l'étude {}: {}", studyId, e.getMessage());
-                            System.err.println("Erreur pour l'étude " + studyId + ": " + e.getMessage());
-                        }
-                    }
+                if (studyIds == null) {
+                    return new ArrayList<>();
                 }
-                
-                System.out.println("Nombre total d'études récupérées: " + studies.size());
-                return studies;
+
+                // Hydrater les études en parallèle : la latence est bornée par la branche la plus lente
+                Instant deadline = listingDeadline();
+                Instant childDeadline = deadline.minus(NESTED_DEADLINE_MARGIN);
+                OrthancHydrationExecutor.FanOutResult<DicomStudyDTO> result = hydrationExecutor.fanOut(
+                    studyIds, studyId -> getStudy(studyId, childDeadline), deadline);
+
+                if (!result.complete()) {
+                    log.warn("Liste des études partielle: {}/{} études hydratées dans le délai",
+                            result.values().size(), studyIds.size());
+                }
+                System.out.println("Nombre total d'études récupérées: " + result.values().size());
+                return result.values();
             } catch (Exception e) {
                 log.error("Erreur lors de l'appel à Orthanc: {}", e.getMessage());
                 System.err.println("Erreur lors de l'appel à Orthanc: " + e.getMessage());
@@ -195,7 +216,99 @@ public class OrthancService {
         }
     }
 
+    /**
+     * Recherche paginée des études via /tools/find d'Orthanc.
+     * Les filtres sont appliqués côté Orthanc et seules les métadonnées principales
+     * sont renvoyées : le coût dépend de la taille de la page, pas de l'archive.
+     */
+    public DicomStudyPageDTO findStudies(String patientId, String modality, LocalDate from, LocalDate to,
+                                         int page, int size) {
+        try {
+            Map<String, Object> query = new HashMap<>();
+            if (patientId != null && !patientId.isBlank()) {
+                query.put("PatientID", patientId);
+            }
+            if (modality != null && !modality.isBlank()) {
+                query.put("ModalitiesInStudy", modality);
+            }
+            if (from != null || to != null) {
+                // Plage de dates DICOM: YYYYMMDD-YYYYMMDD (bornes optionnelles)
+                query.put("StudyDate", (from != null ? from.format(DICOM_DATE_FORMAT) : "")
+                        + "-" + (to != null ? to.format(DICOM_DATE_FORMAT) : ""));
+            }
+
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("Level", "Study");
+            requestBody.put("Expand", true);
+            requestBody.put("Query", query);
+            requestBody.put("Since", page * size);
+            // Un élément de plus que la page pour savoir s'il existe une page suivante
+            requestBody.put("Limit", size + 1);
+
+            HttpHeaders headers = createHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(requestBody, headers);
+
+            log.info("Recherche d'études Orthanc (page {}, taille {}): {}", page, size, query);
+            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+                orthancProperties.getApi().getUrl() + "/tools/find",
+                HttpMethod.POST,
+                requestEntity,
+                new ParameterizedTypeReference<List<Map<String, Object>>>() {}
+            );
+
+            List<Map<String, Object>> found = response.getBody() != null ? response.getBody() : List.of();
+            List<DicomStudySummaryDTO> content = found.stream()
+                    .limit(size)
+                    .map(this::mapToStudySummary)
+                    .collect(Collectors.toList());
+
+            DicomStudyPageDTO pageDTO = new DicomStudyPageDTO();
+            pageDTO.setContent(content);
+            pageDTO.setPage(page);
+            pageDTO.setSize(size);
+            pageDTO.setHasNext(found.size() > size);
+            return pageDTO;
+        } catch (Exception e) {
+            log.error("Erreur lors de la recherche des études", e);
+            throw new RuntimeException("Échec de la recherche des études", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private DicomStudySummaryDTO mapToStudySummary(Map<String, Object> studyData) {
+        DicomStudySummaryDTO summary = new DicomStudySummaryDTO();
+        summary.setId(getStringValue(studyData, "ID"));
+
+        Map<String, Object> mainTags = (Map<String, Object>) studyData.get("MainDicomTags");
+        Map<String, Object> patientTags = (Map<String, Object>) studyData.get("PatientMainDicomTags");
+        Map<String, Object> patientSource = patientTags != null ? patientTags : mainTags;
+
+        summary.setPatientName(getStringValue(patientSource, "PatientName"));
+        summary.setPatientId(getStringValue(patientSource, "PatientID"));
+        summary.setStudyDescription(getStringValue(mainTags, "StudyDescription"));
+        summary.setStudyDate(parseDicomDate(getStringValue(mainTags, "StudyDate")));
+
+        String modalities = getStringValue(mainTags, "ModalitiesInStudy");
+        if (modalities != null && !modalities.isEmpty()) {
+            summary.setModalities(Arrays.asList(modalities.split("\\\\")));
+        }
+        Object series = studyData.get("Series");
+        if (series instanceof List<?> seriesIds) {
+            summary.setSeriesCount(seriesIds.size());
+        }
+        return summary;
+    }
+
     public DicomStudyDTO getStudy(String studyId) {
+        return getStudy(studyId, studyDeadline());
+    }
+
+    private DicomStudyDTO getStudy(String studyId, Instant deadline) {
+        return loadOnce("study:" + studyId, () -> loadStudy(studyId, deadline));
+    }
+
+    private DicomStudyDTO loadStudy(String studyId, Instant deadline) {
         try {
             log.info("Récupération des détails de l'étude {}", studyId);
             
@@ -215,12 +328,12 @@ public class OrthancService {
             log.info("URL de l'étude: {}", studyUrl);
             
             // Utiliser Map pour capturer toutes les propriétés
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = hydrationExecutor.call(() -> restTemplate.exchange(
                 studyUrl,
                 HttpMethod.GET,
                 requestEntity,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
+            ));
             
             Map<String, Object> studyData = response.getBody();
             log.info("Données de l'étude reçues: {}", studyData);
@@ -238,45 +351,31 @@ public class OrthancService {
                 studyDTO.setStudyDescription(getStringValue(mainTags, "StudyDescription"));
                 
                 // Convertir la date d'étude si présente
-                String studyDateStr = getStringValue(mainTags, "StudyDate");
-                if (studyDateStr != null && !studyDateStr.isEmpty()) {
-                    try {
-                        // Format DICOM: YYYYMMDD
-                        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-                        LocalDate date = LocalDate.parse(studyDateStr, formatter);
-                        studyDTO.setStudyDate(date.atStartOfDay());
-                    } catch (Exception e) {
-                        log.warn("Impossible de parser la date d'étude: {}", studyDateStr, e);
-                    }
-                }
+                studyDTO.setStudyDate(parseDicomDate(getStringValue(mainTags, "StudyDate")));
             }
             
             // 3. Récupérer les séries associées à cette étude
+            boolean complete = true;
             if (studyData != null && studyData.containsKey("Series")) {
                 List<String> seriesIds = (List<String>) studyData.get("Series");
-                List<DicomSeriesDTO> seriesList = new ArrayList<>();
+                orthancCache.linkChildren(studyId, seriesIds);
                 
-                // Récupérer les détails de chaque série (limiter à 5 pour éviter les problèmes de performance)
-                int maxSeries = Math.min(seriesIds.size(), 5);
-                for (int i = 0; i < maxSeries; i++) {
-                    String seriesId = seriesIds.get(i);
-                    try {
-                        DicomSeriesDTO series = getSeries(seriesId);
-                        if (series != null) {
-                            seriesList.add(series);
-                        }
-                    } catch (Exception e) {
-                        log.error("Erreur lors de la récupération de la série {}: {}", seriesId, e.getMessage());
-                    }
-                }
+                // Récupérer les détails des séries en parallèle (limiter à 5 pour éviter les problèmes de performance)
+                List<String> selectedSeries = seriesIds.subList(0, Math.min(seriesIds.size(), 5));
+                Instant childDeadline = deadline.minus(NESTED_DEADLINE_MARGIN);
+                OrthancHydrationExecutor.FanOutResult<DicomSeriesDTO> seriesResult = hydrationExecutor.fanOut(
+                    selectedSeries, seriesId -> getSeries(seriesId, childDeadline), deadline);
+                complete = seriesResult.complete();
                 
-                studyDTO.setSeries(seriesList);
+                studyDTO.setSeries(seriesResult.values());
             }
             
             log.info("DTO d'étude construit avec succès: {}", studyDTO);
             
-            // Mettre en cache le résultat pour les prochaines requêtes
-            orthancCache.putStudy(studyId, studyDTO);
+            // Mettre en cache le résultat pour les prochaines requêtes (uniquement s'il est complet)
+            if (complete) {
+                orthancCache.putStudy(studyId, studyDTO);
+            }
             
             return studyDTO;
         } catch (Exception e) {
@@ -285,6 +384,21 @@ public class OrthancService {
         }
     }
     
+    /**
+     * Convertit une date DICOM (YYYYMMDD) en LocalDateTime, ou null si absente/invalide
+     */
+    private LocalDateTime parseDicomDate(String dicomDate) {
+        if (dicomDate == null || dicomDate.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(dicomDate, DICOM_DATE_FORMAT).atStartOfDay();
+        } catch (Exception e) {
+            log.warn("Impossible de parser la date DICOM: {}", dicomDate, e);
+            return null;
+        }
+    }
+
     /**
      * Extrait une valeur String d'une Map de façon sécurisée
      */
@@ -307,6 +421,7 @@ public class OrthancService {
                 requestEntity,
                 Void.class
             );
+            orthancCache.invalidateStudy(studyId);
         } catch (Exception e) {
             log.error("Error deleting study: {}", studyId, e);
             throw new RuntimeException("Failed to delete study", e);
@@ -331,6 +446,7 @@ public class OrthancService {
                 requestEntity,
                 OrthancResponse.class
             );
+            orthancCache.invalidateStudy(studyId);
 
             return response.getBody();
         } catch (Exception e) {
@@ -340,6 +456,14 @@ public class OrthancService {
     }
 
     public DicomSeriesDTO getSeries(String seriesId) {
+        return getSeries(seriesId, studyDeadline());
+    }
+
+    private DicomSeriesDTO getSeries(String seriesId, Instant deadline) {
+        return loadOnce("series:" + seriesId, () -> loadSeries(seriesId, deadline));
+    }
+
+    private DicomSeriesDTO loadSeries(String seriesId, Instant deadline) {
         try {
             log.info("Récupération des détails de la série {}", seriesId);
             
@@ -359,12 +483,12 @@ public class OrthancService {
             log.info("URL de la série: {}", seriesUrl);
             
             // Utiliser Map pour capturer toutes les propriétés
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = hydrationExecutor.call(() -> restTemplate.exchange(
                 seriesUrl,
                 HttpMethod.GET,
                 requestEntity,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
+            ));
             
             Map<String, Object> seriesData = response.getBody();
             
@@ -391,33 +515,28 @@ public class OrthancService {
             }
             
             // 3. Récupérer les instances associées à cette série
+            boolean complete = true;
             if (seriesData != null && seriesData.containsKey("Instances")) {
                 List<String> instanceIds = (List<String>) seriesData.get("Instances");
-                List<DicomInstanceDTO> instancesList = new ArrayList<>();
+                orthancCache.linkChildren(seriesId, instanceIds);
                 
                 log.info("Récupération de {} instances pour la série {}", instanceIds.size(), seriesId);
                 
-                // Récupérer les détails de chaque instance (limiter à maximum 10 pour éviter les problèmes de performance)
-                int maxInstances = Math.min(instanceIds.size(), 10);
-                for (int i = 0; i < maxInstances; i++) {
-                    String instanceId = instanceIds.get(i);
-                    try {
-                        DicomInstanceDTO instance = getInstance(instanceId);
-                        if (instance != null) {
-                            instancesList.add(instance);
-                        }
-                    } catch (Exception e) {
-                        log.error("Erreur lors de la récupération de l'instance {}: {}", instanceId, e.getMessage());
-                    }
-                }
+                // Récupérer les détails des instances en parallèle (limiter à maximum 10 pour éviter les problèmes de performance)
+                List<String> selectedInstances = instanceIds.subList(0, Math.min(instanceIds.size(), 10));
+                OrthancHydrationExecutor.FanOutResult<DicomInstanceDTO> instancesResult = hydrationExecutor.fanOut(
+                    selectedInstances, this::getInstance, deadline);
+                complete = instancesResult.complete();
                 
-                seriesDTO.setInstances(instancesList);
+                seriesDTO.setInstances(instancesResult.values());
             }
             
             log.info("DTO de série construit avec succès: {}", seriesDTO);
             
-            // Mettre en cache le résultat pour les prochaines requêtes
-            orthancCache.putSeries(seriesId, seriesDTO);
+            // Mettre en cache le résultat pour les prochaines requêtes (uniquement s'il est complet)
+            if (complete) {
+                orthancCache.putSeries(seriesId, seriesDTO);
+            }
             
             return seriesDTO;
         } catch (Exception e) {
@@ -427,6 +546,10 @@ public class OrthancService {
     }
 
     public DicomInstanceDTO getInstance(String instanceId) {
+        return loadOnce("instance:" + instanceId, () -> loadInstance(instanceId));
+    }
+
+    private DicomInstanceDTO loadInstance(String instanceId) {
         try {
             log.info("Récupération des détails de l'instance {}", instanceId);
             
@@ -446,12 +569,12 @@ public class OrthancService {
             log.info("URL de l'instance: {}", instanceUrl);
             
             // Utiliser Map pour capturer toutes les propriétés
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+            ResponseEntity<Map<String, Object>> response = hydrationExecutor.call(() -> restTemplate.exchange(
                 instanceUrl,
                 HttpMethod.GET,
                 requestEntity,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
-            );
+            ));
             
             Map<String, Object> instanceData = response.getBody();
             
@@ -523,16 +646,10 @@ public class OrthancService {
                 return cachedImage;
             }
             
-            // Si non trouvé dans le cache, interroger Orthanc
-            HttpHeaders headers = createHeaders();
-            HttpEntity<?> requestEntity = new HttpEntity<>(headers);
-
-            ResponseEntity<byte[]> response = restTemplate.exchange(
-                orthancProperties.getApi().getUrl() + "/instances/" + instanceId + "/preview",
-                HttpMethod.GET,
-                requestEntity,
-                byte[].class
-            );
+            // Si non trouvé dans le cache, interroger Orthanc (un seul appel pour les requêtes concurrentes)
+            String cacheKey = "preview_" + instanceId;
+            byte[] imageData = loadOnce(cacheKey, () -> fetchImage(cacheKey,
+                orthancProperties.getApi().getUrl() + "/instances/" + instanceId + "/preview"));
 
             // Audit de l'accès
             auditService.logAccess(
@@ -542,13 +659,6 @@ public class OrthancService {
                 "SUCCESS"
             );
             
-            // Mettre en cache le résultat pour les prochaines requêtes
-            byte[] imageData = response.getBody();
-            if (imageData != null && imageData.length > 0) {
-                orthancCache.putImage("preview_" + instanceId, imageData);
-                log.info("Aperçu de l'instance {} mis en cache ({} octets)", instanceId, imageData.length);
-            }
-
             return imageData;
         } catch (Exception e) {
             // Audit de l'échec
@@ -581,16 +691,10 @@ public class OrthancService {
                 return cachedImage;
             }
             
-            // Si non trouvé dans le cache, interroger Orthanc
-            HttpHeaders headers = createHeaders();
-            HttpEntity<?> requestEntity = new HttpEntity<>(headers);
-
-            ResponseEntity<byte[]> response = restTemplate.exchange(
-                orthancProperties.getApi().getUrl() + "/instances/" + instanceId + "/rendered",
-                HttpMethod.GET,
-                requestEntity,
-                byte[].class
-            );
+            // Si non trouvé dans le cache, interroger Orthanc (un seul appel pour les requêtes concurrentes)
+            String cacheKey = "image_" + instanceId;
+            byte[] imageData = loadOnce(cacheKey, () -> fetchImage(cacheKey,
+                orthancProperties.getApi().getUrl() + "/instances/" + instanceId + "/rendered"));
 
             // Audit de l'accès
             auditService.logAccess(
@@ -600,13 +704,6 @@ public class OrthancService {
                 "SUCCESS"
             );
             
-            // Mettre en cache le résultat pour les prochaines requêtes
-            byte[] imageData = response.getBody();
-            if (imageData != null && imageData.length > 0) {
-                orthancCache.putImage("image_" + instanceId, imageData);
-                log.info("Image de l'instance {} mise en cache ({} octets)", instanceId, imageData.length);
-            }
-
             return imageData;
         } catch (Exception e) {
             // Audit de l'échec
@@ -621,6 +718,72 @@ public class OrthancService {
         }
     }
 
+    /**
+     * Télécharge une image rendue ou un aperçu et le met en cache.
+     * Le cache est revérifié : un chargement concurrent vient peut-être de se terminer.
+     */
+    private byte[] fetchImage(String cacheKey, String url) {
+        byte[] cachedImage = orthancCache.getImage(cacheKey);
+        if (cachedImage != null) {
+            return cachedImage;
+        }
+
+        HttpEntity<?> requestEntity = new HttpEntity<>(createHeaders());
+        ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.GET, requestEntity, byte[].class);
+
+        // Mettre en cache le résultat pour les prochaines requêtes
+        byte[] imageData = response.getBody();
+        if (imageData != null && imageData.length > 0) {
+            orthancCache.putImage(cacheKey, imageData);
+            log.info("{} mis en cache ({} octets)", cacheKey, imageData.length);
+        }
+        return imageData;
+    }
+
+    /**
+     * Single-flight : le premier appelant d'une clé exécute {@code loader}, les appelants
+     * concurrents sur la même clé attendent et reçoivent le même résultat (ou la même exception).
+     * Le futur partagé est toujours complété, quelle que soit l'erreur du chargement, et l'attente
+     * est bornée par orthanc.hydration.shared-load-timeout.
+     * L'audit reste à la charge de chaque appelant.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T loadOnce(String key, Supplier<T> loader) {
+        CompletableFuture<Object> ownLoad = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(key, ownLoad);
+        if (inFlight != null) {
+            log.debug("Chargement de {} déjà en cours, attente du résultat partagé", key);
+            try {
+                return (T) inFlight.get(orthancProperties.getHydration().getSharedLoadTimeout(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new OrthancException("Échec du chargement partagé de " + key, e.getCause());
+            } catch (TimeoutException e) {
+                throw new OrthancException("Délai dépassé en attente du chargement partagé de " + key, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OrthancException("Interrompu en attente du chargement partagé de " + key, e);
+            }
+        }
+
+        try {
+            T value = loader.get();
+            ownLoad.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Erreur, ou exception vérifiée levée sans être déclarée : les appelants en attente sont libérés
+            ownLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, ownLoad);
+        }
+    }
+
     public OrthancResponse modifyInstance(String instanceId, ModifyInstanceRequest request) {
         try {
             HttpHeaders headers = createHeaders();
@@ -638,6 +801,7 @@ public class OrthancService {
                 requestEntity,
                 OrthancResponse.class
             );
+            orthancCache.invalidateInstance(instanceId);
 
             return response.getBody();
         } catch (Exception e) {
@@ -669,6 +833,7 @@ public class OrthancService {
                 requestEntity,
                 new ParameterizedTypeReference<Map<String, Object>>() {}
             );
+            orthancCache.invalidateStudy(studyId);
 
             return response.getBody();
         } catch (Exception e) {
@@ -678,22 +843,29 @@ public class OrthancService {
     }
 
     /**
-     * Récupère le fichier DICOM brut d'une instance
+     * Transfère le fichier DICOM brut d'une instance directement depuis Orthanc vers le client.
+     * Le fichier n'est jamais chargé en mémoire : seul un tampon de taille fixe est utilisé.
      * @param instanceId ID de l'instance
-     * @return Contenu du fichier DICOM
+     * @param rangeHeader en-tête Range de la requête cliente (optionnel)
+     * @param response réponse HTTP vers laquelle le fichier est recopié
      */
-    public byte[] getInstanceDicomFile(String instanceId) {
+    public void streamInstanceDicomFile(String instanceId, String rangeHeader, HttpServletResponse response) {
         try {
             HttpHeaders headers = createHeaders();
-            HttpEntity<?> requestEntity = new HttpEntity<>(headers);
+            if (rangeHeader != null) {
+                headers.set(HttpHeaders.RANGE, rangeHeader);
+            }
 
-            log.info("Récupération du fichier DICOM pour l'instance: {}", instanceId);
-            
-            ResponseEntity<byte[]> response = restTemplate.exchange(
+            log.info("Transfert du fichier DICOM pour l'instance: {}", instanceId);
+
+            restTemplate.execute(
                 orthancProperties.getApi().getUrl() + "/instances/" + instanceId + "/file",
                 HttpMethod.GET,
-                requestEntity,
-                byte[].class
+                request -> request.getHeaders().putAll(headers),
+                orthancResponse -> {
+                    OrthancStreamUtils.relayBody(orthancResponse, rangeHeader, response);
+                    return null;
+                }
             );
 
             // Audit de l'accès
@@ -703,11 +875,23 @@ public class OrthancService {
                 "DOWNLOAD_DICOM",
                 "SUCCESS"
             );
-
-            log.info("Fichier DICOM récupéré avec succès, taille: {} octets", 
-                    response.getBody() != null ? response.getBody().length : 0);
-            
-            return response.getBody();
+        } catch (HttpClientErrorException e) {
+            // Instance inconnue, plage non satisfaisable... : le statut d'Orthanc est renvoyé tel quel
+            auditService.logAccess(
+                SecurityContextHolder.getContext().getAuthentication().getName(),
+                instanceId,
+                "DOWNLOAD_DICOM",
+                "FAILURE: " + e.getStatusCode().value()
+            );
+            log.warn("Orthanc a refusé le fichier DICOM {}: {}", instanceId, e.getStatusCode());
+            if (response.isCommitted()) {
+                return;
+            }
+            try {
+                OrthancStreamUtils.relayClientError(e, response);
+            } catch (IOException io) {
+                throw new RuntimeException("Échec de la transmission de l'erreur Orthanc", io);
+            }
         } catch (Exception e) {
             // Audit de l'échec
             auditService.logAccess(
@@ -716,11 +900,25 @@ public class OrthancService {
                 "DOWNLOAD_DICOM",
                 "FAILURE: " + e.getMessage()
             );
-            log.error("Erreur lors de la récupération du fichier DICOM: {}", instanceId, e);
+            log.error("Erreur lors du transfert du fichier DICOM: {}", instanceId, e);
             throw new RuntimeException("Échec de la récupération du fichier DICOM", e);
         }
     }
 
+    /**
+     * Échéance d'hydratation d'une étude à partir de maintenant
+     */
+    private Instant studyDeadline() {
+        return Instant.now().plusMillis(orthancProperties.getHydration().getStudyTimeout());
+    }
+
+    /**
+     * Échéance de la liste complète des études, partagée par toutes les branches du fan-out
+     */
+    private Instant listingDeadline() {
+        return Instant.now().plusMillis(orthancProperties.getHydration().getListingTimeout());
+    }
+
     private HttpHeaders createHeaders() {
         HttpHeaders headers = new HttpHeaders();
         String auth = orthancProperties.getApi().getUsername() + ":" + 
@@ -0,0 +1,148 @@
+package com.example.demo.orthanc.util;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Transfert en flux des réponses Orthanc vers le client HTTP.
+ * Le corps n'est jamais chargé en mémoire : il est recopié par un tampon de taille fixe,
+ * ce qui garde une consommation mémoire constante quelle que soit la taille du fichier.
+ */
+public final class OrthancStreamUtils {
+
+    private OrthancStreamUtils() {
+        // Empêcher l'instanciation
+    }
+
+    /**
+     * Recopie le corps d'une réponse Orthanc en gérant l'en-tête Range du client.
+     * Si Orthanc a déjà répondu 206, la réponse partielle est transmise telle quelle ;
+     * sinon la plage demandée est extraite du flux complet.
+     *
+     * @param source      réponse d'Orthanc (flux non consommé)
+     * @param rangeHeader en-tête Range de la requête cliente, ou null
+     * @param target      réponse servlet vers le client
+     */
+    public static void relayBody(ClientHttpResponse source, String rangeHeader, HttpServletResponse target)
+            throws IOException {
+        HttpHeaders sourceHeaders = source.getHeaders();
+        long contentLength = sourceHeaders.getContentLength();
+
+        if (source.getStatusCode().is4xxClientError()) {
+            // Erreur côté client (404, 416...) : statut et corps transmis sans interprétation de la plage
+            target.setStatus(source.getStatusCode().value());
+            copyHeader(sourceHeaders, HttpHeaders.CONTENT_TYPE, target);
+            copyHeader(sourceHeaders, HttpHeaders.CONTENT_RANGE, target);
+            copyBody(source.getBody(), contentLength, target);
+            return;
+        }
+
+        if (source.getStatusCode().value() == HttpStatus.PARTIAL_CONTENT.value()) {
+            target.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            copyHeader(sourceHeaders, HttpHeaders.CONTENT_RANGE, target);
+            copyBody(source.getBody(), contentLength, target);
+            return;
+        }
+
+        if (contentLength >= 0) {
+            target.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        }
+
+        List<HttpRange> ranges = parseSingleRange(rangeHeader);
+        if (ranges.isEmpty() || contentLength < 0) {
+            target.setStatus(source.getStatusCode().value());
+            copyBody(source.getBody(), contentLength, target);
+            return;
+        }
+
+        HttpRange range = ranges.get(0);
+        long start;
+        long end;
+        try {
+            start = range.getRangeStart(contentLength);
+            end = range.getRangeEnd(contentLength);
+        } catch (IllegalArgumentException e) {
+            target.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            target.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+            return;
+        }
+        if (start >= contentLength) {
+            target.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            target.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+            return;
+        }
+
+        target.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        target.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + contentLength);
+        target.setContentLengthLong(end - start + 1);
+        try (InputStream in = source.getBody()) {
+            OutputStream out = target.getOutputStream();
+            StreamUtils.copyRange(in, out, start, end);
+            out.flush();
+        }
+    }
+
+    /**
+     * Transmet au client une erreur 4xx d'Orthanc levée par RestTemplate (statut, Content-Range et corps),
+     * au lieu de la laisser remonter en erreur 500
+     */
+    public static void relayClientError(HttpClientErrorException error, HttpServletResponse target) throws IOException {
+        target.setStatus(error.getStatusCode().value());
+        // Une erreur ne doit pas rester en cache côté client comme le fichier lui-même
+        target.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        HttpHeaders headers = error.getResponseHeaders();
+        if (headers != null) {
+            copyHeader(headers, HttpHeaders.CONTENT_TYPE, target);
+            copyHeader(headers, HttpHeaders.CONTENT_RANGE, target);
+        }
+        byte[] body = error.getResponseBodyAsByteArray();
+        target.setContentLength(body.length);
+        target.getOutputStream().write(body);
+    }
+
+    /**
+     * Recopie un flux complet vers le client en transmettant sa longueur si elle est connue
+     */
+    public static void copyBody(InputStream body, long contentLength, HttpServletResponse target) throws IOException {
+        if (contentLength >= 0) {
+            target.setContentLengthLong(contentLength);
+        }
+        try (InputStream in = body) {
+            OutputStream out = target.getOutputStream();
+            StreamUtils.copy(in, out);
+            out.flush();
+        }
+    }
+
+    public static void copyHeader(HttpHeaders source, String name, HttpServletResponse target) {
+        String value = source.getFirst(name);
+        if (value != null) {
+            target.setHeader(name, value);
+        }
+    }
+
+    /**
+     * Seules les plages simples sont extraites ; les plages multiples renvoient le contenu complet
+     */
+    private static List<HttpRange> parseSingleRange(String rangeHeader) {
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return List.of();
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges : List.of();
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
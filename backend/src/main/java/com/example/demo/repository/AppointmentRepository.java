@@ -1,20 +1,76 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.AppointmentDTO;
 import com.example.demo.model.Appointment;
 import com.example.demo.model.AppointmentStatus;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Les listes chargent patient et médecin dans la même requête (graphe d'entités),
+ * ce qui évite une requête supplémentaire par rendez-vous lors du mapping en DTO.
+ */
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+
+    // Projection commune des listes de rendez-vous (colonnes utiles uniquement, aucune entité hydratée)
+    String SELECT_APPOINTMENT_DTO = "SELECT new com.example.demo.dto.AppointmentDTO(a.id, p.id, " +
+            "CONCAT(p.firstName, ' ', p.lastName), d.id, CONCAT(d.firstName, ' ', d.lastName), " +
+            "a.dateTime, a.reason, a.status, a.notes) FROM Appointment a JOIN a.patient p JOIN a.doctor d ";
+
+    @EntityGraph(attributePaths = {"patient", "doctor"})
     List<Appointment> findByPatient(User patient);
+
+    @EntityGraph(attributePaths = {"patient", "doctor"})
     List<Appointment> findByDoctor(User doctor);
+
+    @EntityGraph(attributePaths = {"patient", "doctor"})
     List<Appointment> findByPatientAndStatus(User patient, AppointmentStatus status);
+
+    @EntityGraph(attributePaths = {"patient", "doctor"})
     List<Appointment> findByDoctorAndStatus(User doctor, AppointmentStatus status);
+
+    @EntityGraph(attributePaths = {"patient", "doctor"})
     List<Appointment> findByDateTimeBetween(LocalDateTime start, LocalDateTime end);
+
+    @Override
+    @EntityGraph(attributePaths = {"patient", "doctor"})
+    List<Appointment> findAll();
+
     long countByStatus(AppointmentStatus status);  // Ajout de la méthode de comptage
-}
\ No newline at end of file
+
+    @Query(SELECT_APPOINTMENT_DTO + "WHERE d.id = :doctorId ORDER BY a.dateTime")
+    List<AppointmentDTO> findDTOsByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Query(SELECT_APPOINTMENT_DTO + "WHERE d.id = :doctorId AND a.status = :status ORDER BY a.dateTime")
+    List<AppointmentDTO> findDTOsByDoctorIdAndStatus(@Param("doctorId") Long doctorId,
+                                                     @Param("status") AppointmentStatus status);
+
+    @Query(SELECT_APPOINTMENT_DTO + "WHERE p.id = :patientId ORDER BY a.dateTime")
+    List<AppointmentDTO> findDTOsByPatientId(@Param("patientId") Long patientId);
+
+    @Query(SELECT_APPOINTMENT_DTO + "ORDER BY a.dateTime")
+    List<AppointmentDTO> findAllDTOs();
+
+    // Pagination par clé (dateTime, id) : les rendez-vous strictement après le curseur
+    String AFTER_CURSOR = "(a.dateTime > :dateTime OR (a.dateTime = :dateTime AND a.id > :id)) ";
+
+    @Query(SELECT_APPOINTMENT_DTO + "WHERE d.id = :doctorId AND " + AFTER_CURSOR + "ORDER BY a.dateTime, a.id")
+    List<AppointmentDTO> findDTOsByDoctorIdAfter(@Param("doctorId") Long doctorId, @Param("dateTime") LocalDateTime dateTime,
+                                                 @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_APPOINTMENT_DTO + "WHERE p.id = :patientId AND " + AFTER_CURSOR + "ORDER BY a.dateTime, a.id")
+    List<AppointmentDTO> findDTOsByPatientIdAfter(@Param("patientId") Long patientId, @Param("dateTime") LocalDateTime dateTime,
+                                                  @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_APPOINTMENT_DTO + "WHERE " + AFTER_CURSOR + "ORDER BY a.dateTime, a.id")
+    List<AppointmentDTO> findDTOsAfter(@Param("dateTime") LocalDateTime dateTime, @Param("id") Long id, Pageable pageable);
+}
@@ -0,0 +1,28 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Emails dus, verrouillés ; les lignes déjà prises par une autre instance sont ignorées
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Purge par tranches : emails envoyés (date d'envoi) et abandonnés (date de création) antérieurs aux bornes
+    @Modifying
+    @Query(value = "DELETE FROM email_outbox WHERE id IN (SELECT id FROM email_outbox " +
+                   "WHERE (status = 'SENT' AND sent_at < :sentBefore) OR (status = 'DEAD' AND created_at < :deadBefore) " +
+                   "LIMIT :limit)", nativeQuery = true)
+    int deleteExpired(@Param("sentBefore") LocalDateTime sentBefore, @Param("deadBefore") LocalDateTime deadBefore,
+                      @Param("limit") int limit);
+}
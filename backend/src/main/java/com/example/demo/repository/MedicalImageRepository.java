@@ -1,10 +1,14 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.MedicalImageDTO;
 import com.example.demo.model.MedicalImage;
 import com.example.demo.model.MedicalRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +17,18 @@ public interface MedicalImageRepository extends JpaRepository<MedicalImage, Long
     List<MedicalImage> findByMedicalRecord(MedicalRecord medicalRecord);
     List<MedicalImage> findByMedicalRecord_Id(Long medicalRecordId);
     Optional<MedicalImage> findByOrthancInstanceId(String orthancInstanceId);
+
+    String SELECT_MEDICAL_IMAGE_DTO = "SELECT new com.example.demo.dto.MedicalImageDTO(i.id, i.medicalRecord.id, " +
+           "i.orthancInstanceId, i.imageType, i.description, i.uploadedAt, i.annotations) FROM MedicalImage i ";
+
+    // Images de plusieurs dossiers en une seule requête, projetées en DTO (liste bornée : une page)
+    @Query(SELECT_MEDICAL_IMAGE_DTO + "WHERE i.medicalRecord.id IN :recordIds ORDER BY i.id")
+    List<MedicalImageDTO> findDTOsByMedicalRecordIds(@Param("recordIds") Collection<Long> recordIds);
+
+    // Images de tous les dossiers d'un médecin, par jointure plutôt que par liste d'identifiants
+    @Query(SELECT_MEDICAL_IMAGE_DTO + "WHERE i.medicalRecord.doctor.id = :doctorId ORDER BY i.id")
+    List<MedicalImageDTO> findDTOsByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Query(SELECT_MEDICAL_IMAGE_DTO + "ORDER BY i.id")
+    List<MedicalImageDTO> findAllDTOs();
 }
\ No newline at end of file
@@ -1,15 +1,62 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.MedicalRecordDTO;
 import com.example.demo.model.MedicalRecord;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Les listes chargent patient, médecin et images dans la même requête (graphe d'entités)
+ */
 @Repository
 public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
+
+    // Projection des listes de dossiers ; les images sont chargées ensuite en une seule requête
+    String SELECT_MEDICAL_RECORD_DTO = "SELECT new com.example.demo.dto.MedicalRecordDTO(r.id, p.id, " +
+            "CONCAT(p.firstName, ' ', p.lastName), d.id, CONCAT(d.firstName, ' ', d.lastName), " +
+            "r.diagnosis, r.treatment, r.createdAt, r.notes) FROM MedicalRecord r JOIN r.patient p JOIN r.doctor d ";
+
+    @EntityGraph(attributePaths = {"patient", "doctor", "medicalImages"})
     List<MedicalRecord> findByPatient(User patient);
+
+    @EntityGraph(attributePaths = {"patient", "doctor", "medicalImages"})
     List<MedicalRecord> findByDoctor(User doctor);
+
+    @EntityGraph(attributePaths = {"patient", "doctor", "medicalImages"})
     List<MedicalRecord> findByPatientAndDoctor(User patient, User doctor);
-}
\ No newline at end of file
+
+    @Override
+    @EntityGraph(attributePaths = {"patient", "doctor", "medicalImages"})
+    List<MedicalRecord> findAll();
+
+    @Query(SELECT_MEDICAL_RECORD_DTO + "WHERE d.id = :doctorId ORDER BY r.createdAt")
+    List<MedicalRecordDTO> findDTOsByDoctorId(@Param("doctorId") Long doctorId);
+
+    @Query(SELECT_MEDICAL_RECORD_DTO + "WHERE p.id = :patientId ORDER BY r.createdAt")
+    List<MedicalRecordDTO> findDTOsByPatientId(@Param("patientId") Long patientId);
+
+    @Query(SELECT_MEDICAL_RECORD_DTO + "ORDER BY r.createdAt")
+    List<MedicalRecordDTO> findAllDTOs();
+
+    // Pagination par clé (createdAt, id) : les dossiers strictement après le curseur
+    String AFTER_CURSOR = "(r.createdAt > :createdAt OR (r.createdAt = :createdAt AND r.id > :id)) ";
+
+    @Query(SELECT_MEDICAL_RECORD_DTO + "WHERE d.id = :doctorId AND " + AFTER_CURSOR + "ORDER BY r.createdAt, r.id")
+    List<MedicalRecordDTO> findDTOsByDoctorIdAfter(@Param("doctorId") Long doctorId, @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_MEDICAL_RECORD_DTO + "WHERE p.id = :patientId AND " + AFTER_CURSOR + "ORDER BY r.createdAt, r.id")
+    List<MedicalRecordDTO> findDTOsByPatientIdAfter(@Param("patientId") Long patientId, @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id, Pageable pageable);
+
+    @Query(SELECT_MEDICAL_RECORD_DTO + "WHERE " + AFTER_CURSOR + "ORDER BY r.createdAt, r.id")
+    List<MedicalRecordDTO> findDTOsAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+}
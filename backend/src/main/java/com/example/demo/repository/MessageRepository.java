@@ -1,23 +1,102 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.MessageDTO;
 import com.example.demo.model.Message;
 import com.example.demo.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
+    @EntityGraph(attributePaths = {"sender", "receiver"})
     List<Message> findBySenderAndReceiver(User sender, User receiver);
 
-    @Query("SELECT m FROM Message m WHERE (m.sender = ?1 AND m.receiver = ?2) OR (m.sender = ?2 AND m.receiver = ?1) ORDER BY m.sentAt")
+    // Expéditeur et destinataire chargés dans la même requête pour le mapping en DTO
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver " +
+           "WHERE (m.sender = ?1 AND m.receiver = ?2) OR (m.sender = ?2 AND m.receiver = ?1) ORDER BY m.sentAt")
     List<Message> findConversation(User user1, User user2);
 
+    // Conversation projetée directement en DTO (lecture seule, aucune entité hydratée)
+    @Query("SELECT new com.example.demo.dto.MessageDTO(m.id, s.id, CONCAT(s.firstName, ' ', s.lastName), " +
+           "r.id, CONCAT(r.firstName, ' ', r.lastName), m.content, m.sentAt, m.read) " +
+           "FROM Message m JOIN m.sender s JOIN m.receiver r " +
+           "WHERE (s.id = :userId1 AND r.id = :userId2) OR (s.id = :userId2 AND r.id = :userId1) ORDER BY m.sentAt")
+    List<MessageDTO> findConversationDTOs(@Param("userId1") Long userId1, @Param("userId2") Long userId2);
+
+    // Messages de la conversation postérieurs au dernier identifiant reçu par le client
+    @Query("SELECT new com.example.demo.dto.MessageDTO(m.id, s.id, CONCAT(s.firstName, ' ', s.lastName), " +
+           "r.id, CONCAT(r.firstName, ' ', r.lastName), m.content, m.sentAt, m.read) " +
+           "FROM Message m JOIN m.sender s JOIN m.receiver r " +
+           "WHERE ((s.id = :userId1 AND r.id = :userId2) OR (s.id = :userId2 AND r.id = :userId1)) " +
+           "AND m.id > :afterId ORDER BY m.id")
+    List<MessageDTO> findConversationDTOsAfterId(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                                                 @Param("afterId") Long afterId);
+
+    /**
+     * Pagination par clé (sentAt, id) en remontant le temps : les messages strictement avant le curseur.
+     * Chaque sens d'échange est lu séparément sur l'index (sender_id, receiver_id, sent_at, id), déjà dans
+     * l'ordre et borné à la page ; un OR entre les deux sens obligerait à trier toute la conversation.
+     */
+    @Query(value = "SELECT m.id AS id, m.sender_id AS senderId, CONCAT(s.first_name, ' ', s.last_name) AS senderName, " +
+           "m.receiver_id AS receiverId, CONCAT(r.first_name, ' ', r.last_name) AS receiverName, " +
+           "m.content AS content, m.sent_at AS sentAt, m.read AS read " +
+           "FROM ((SELECT * FROM messages WHERE sender_id = :userId1 AND receiver_id = :userId2 " +
+           "AND (sent_at, id) < (:sentAt, :id) ORDER BY sent_at DESC, id DESC LIMIT :limit) " +
+           "UNION ALL " +
+           "(SELECT * FROM messages WHERE sender_id = :userId2 AND receiver_id = :userId1 AND :userId1 <> :userId2 " +
+           "AND (sent_at, id) < (:sentAt, :id) ORDER BY sent_at DESC, id DESC LIMIT :limit)) m " +
+           "JOIN users s ON s.id = m.sender_id JOIN users r ON r.id = m.receiver_id " +
+           "ORDER BY m.sent_at DESC, m.id DESC LIMIT :limit",
+           nativeQuery = true)
+    List<ConversationRow> findConversationRowsBefore(@Param("userId1") Long userId1, @Param("userId2") Long userId2,
+                                                     @Param("sentAt") LocalDateTime sentAt, @Param("id") Long id,
+                                                     @Param("limit") int limit);
+
+    default List<MessageDTO> findConversationDTOsBefore(Long userId1, Long userId2, LocalDateTime sentAt, Long id,
+                                                        int limit) {
+        return findConversationRowsBefore(userId1, userId2, sentAt, id, limit).stream()
+                .map(row -> new MessageDTO(row.getId(), row.getSenderId(), row.getSenderName(), row.getReceiverId(),
+                        row.getReceiverName(), row.getContent(), row.getSentAt(), row.getRead()))
+                .toList();
+    }
+
+    // Ligne de conversation lue en SQL natif, convertie en MessageDTO
+    interface ConversationRow {
+        Long getId();
+
+        Long getSenderId();
+
+        String getSenderName();
+
+        Long getReceiverId();
+
+        String getReceiverName();
+
+        String getContent();
+
+        LocalDateTime getSentAt();
+
+        boolean getRead();
+    }
+
+    @EntityGraph(attributePaths = {"sender", "receiver"})
     List<Message> findByReceiverAndReadFalse(User receiver);
     
     // Récupérer tous les messages non lus envoyés par un utilisateur à un autre
-    @Query("SELECT m FROM Message m WHERE m.sender = ?1 AND m.receiver = ?2 AND m.read = false ORDER BY m.sentAt")
+    @Query("SELECT m FROM Message m JOIN FETCH m.sender JOIN FETCH m.receiver " +
+           "WHERE m.sender = ?1 AND m.receiver = ?2 AND m.read = false ORDER BY m.sentAt")
     List<Message> findUnreadMessages(User sender, User receiver);
+
+    // Marque comme lus en une seule requête les messages reçus d'un expéditeur, renvoie le nombre de lignes modifiées
+    @Modifying
+    @Query("UPDATE Message m SET m.read = true " +
+           "WHERE m.sender.id = :senderId AND m.receiver.id = :receiverId AND m.read = false")
+    int markAsRead(@Param("senderId") Long senderId, @Param("receiverId") Long receiverId);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.UnreadMessageCounter;
+import com.example.demo.model.UnreadMessageCounterId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UnreadMessageCounterRepository extends JpaRepository<UnreadMessageCounter, UnreadMessageCounterId> {
+
+    @Modifying
+    @Query("UPDATE UnreadMessageCounter c SET c.unreadCount = " +
+           "CASE WHEN c.unreadCount > :count THEN c.unreadCount - :count ELSE 0 END " +
+           "WHERE c.id.receiverId = :receiverId AND c.id.senderId = :senderId")
+    int decrement(@Param("receiverId") Long receiverId, @Param("senderId") Long senderId, @Param("count") long count);
+
+    List<UnreadMessageCounter> findByIdReceiverIdAndUnreadCountGreaterThan(Long receiverId, long unreadCount);
+
+    /**
+     * Compte un nouveau message non lu en une seule instruction : le compteur est créé au premier message
+     * échangé, et deux envois simultanés ne peuvent ni le créer deux fois ni perdre un incrément
+     */
+    @Modifying
+    @Query(value = "INSERT INTO unread_message_counters (receiver_id, sender_id, unread_count) " +
+           "VALUES (:receiverId, :senderId, 1) " +
+           "ON CONFLICT (receiver_id, sender_id) DO UPDATE SET unread_count = unread_message_counters.unread_count + 1",
+           nativeQuery = true)
+    void recordNewMessage(@Param("receiverId") Long receiverId, @Param("senderId") Long senderId);
+}
@@ -1,8 +1,11 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.UserDTO;
 import com.example.demo.model.Role;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +17,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     List<User> findByRole(Role role);
     long countByRole(Role role);  // Ajout de la méthode de comptage
+
+    // Projections : seules les colonnes utiles sont lues, sans hydrater d'entités
+    @Query("SELECT new com.example.demo.dto.UserDTO(u.id, u.firstName, u.lastName, u.email, u.role) FROM User u")
+    List<UserDTO> findAllUserDTOs();
+
+    @Query("SELECT new com.example.demo.dto.UserDTO(u.id, u.firstName, u.lastName, u.email, u.role) " +
+           "FROM User u WHERE u.role = :role")
+    List<UserDTO> findUserDTOsByRole(@Param("role") Role role);
+
+    // Versions de jetons de tous les utilisateurs : [id, tokenVersion]
+    @Query("SELECT u.id, u.tokenVersion FROM User u")
+    List<Object[]> findAllTokenVersions();
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findTokenVersionById(@Param("id") Long id);
 }
\ No newline at end of file
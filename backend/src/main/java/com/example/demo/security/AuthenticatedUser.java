@@ -0,0 +1,45 @@
+package com.example.demo.security;
+
+import com.example.demo.model.AccountStatus;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal placé dans le contexte de sécurité par le filtre JWT : instantané immuable de l'identité
+ * du compte (id, email, rôle, statut), sans mot de passe ni association JPA. Il peut donc être partagé
+ * entre threads par le cache des principaux ; un service qui a besoin de l'entité la charge par son id.
+ */
+public record AuthenticatedUser(Long id, String email, Role role, AccountStatus status) implements UserDetails {
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole(), user.getStatus());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        // Jamais conservé : la connexion par mot de passe charge l'entité sans passer par ce cache
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        // Comme User : un statut absent (anciens comptes) vaut actif
+        return status == null || status == AccountStatus.ACTIVE;
+    }
+}
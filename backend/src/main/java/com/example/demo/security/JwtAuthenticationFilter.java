@@ -1,5 +1,6 @@
 package com.example.demo.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +10,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,8 +22,12 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Paramètre portant le ticket d'un flux de messages (voir JwtService.generateStreamTicket)
+    public static final String STREAM_TICKET_PARAMETER = "ticket";
+
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     @Override
     protected void doFilterInternal(
@@ -32,31 +36,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
         final String userEmail;
 
-        log.info("JwtAuthenticationFilter - Processing request: {} {}", request.getMethod(), request.getRequestURI());
+        log.debug("JwtAuthenticationFilter - Processing request: {} {}", request.getMethod(), request.getRequestURI());
+
+        String jwt = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        // Flux de messages ouvert par EventSource : pas d'en-tête possible, ticket passé dans l'URL
+        final boolean streamTicket = jwt == null && isMessageStream(request);
+        if (streamTicket) {
+            jwt = request.getParameter(STREAM_TICKET_PARAMETER);
+        }
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            log.warn("JwtAuthenticationFilter - No Bearer token found in Authorization header for: {}", request.getRequestURI());
+        if (jwt == null) {
+            log.debug("JwtAuthenticationFilter - No Bearer token found in Authorization header for: {}", request.getRequestURI());
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
         try {
-            userEmail = jwtService.extractUsername(jwt);
-            log.info("JwtAuthenticationFilter - JWT token parsed, extracted email: {}", userEmail);
+            // Une seule vérification par requête (signature et expiration), mise en cache par jeton
+            Claims claims = jwtService.verify(jwt);
+            userEmail = claims.getSubject();
+            log.debug("JwtAuthenticationFilter - JWT token verified, extracted email: {}", userEmail);
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-                log.info("JwtAuthenticationFilter - User found: {}, Roles: {}", 
-                          userDetails.getUsername(), 
-                          userDetails.getAuthorities().stream()
-                              .map(Object::toString)
-                              .collect(Collectors.joining(", ")));
+            if (jwtService.isStreamTicket(claims) != streamTicket) {
+                // Un ticket de flux ne vaut pas jeton d'accès, et un jeton d'accès ne circule pas dans une URL
+                log.warn("JwtAuthenticationFilter - Token used outside of its purpose for: {}", request.getRequestURI());
+            } else if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails = streamTicket ? principalCache.get(userEmail) : resolvePrincipal(claims, userEmail);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (userDetails != null && userDetails.isEnabled() && userEmail.equals(userDetails.getUsername())) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -66,13 +75,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             new WebAuthenticationDetailsSource().buildDetails(request)
                     );
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                    log.info("JwtAuthenticationFilter - Authentication successful for user: {} with roles: {}", 
-                              userDetails.getUsername(),
-                              userDetails.getAuthorities().stream()
-                                  .map(Object::toString)
-                                  .collect(Collectors.joining(", ")));
+                    if (log.isDebugEnabled()) {
+                        log.debug("JwtAuthenticationFilter - Authentication successful for user: {} with roles: {}",
+                                  userDetails.getUsername(),
+                                  userDetails.getAuthorities().stream()
+                                      .map(Object::toString)
+                                      .collect(Collectors.joining(", ")));
+                    }
                 } else {
-                    log.error("JwtAuthenticationFilter - Invalid JWT token for user: {}, token might be expired", userEmail);
+                    log.error("JwtAuthenticationFilter - Invalid JWT token for user: {}", userEmail);
                 }
             }
         } catch (Exception e) {
@@ -82,4 +93,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private static boolean isMessageStream(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) && request.getRequestURI().endsWith("/messages/stream");
+    }
+
+    /**
+     * Jeton sans état : principal reconstruit depuis les claims après contrôle de version en mémoire.
+     * Sinon : instantané du compte lu dans le cache des principaux (chargé depuis la base au besoin).
+     */
+    private UserDetails resolvePrincipal(Claims claims, String userEmail) {
+        if (jwtService.isStatelessToken(claims)) {
+            if (!tokenVersionRegistry.isCurrent(jwtService.extractUserId(claims), jwtService.extractTokenVersion(claims))) {
+                log.warn("JwtAuthenticationFilter - Revoked token version for user: {}", userEmail);
+                return null;
+            }
+            return jwtService.toPrincipal(claims);
+        }
+        return principalCache.get(userEmail);
+    }
 }
\ No newline at end of file
@@ -1,29 +1,118 @@
 package com.example.demo.security;
 
+import com.example.demo.model.AccountStatus;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
+    // Claims des jetons sans état
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_VERSION = "ver";
+    public static final String CLAIM_STATUS = "st";
+
+    // Usage restreint d'un jeton : ticket d'ouverture d'un flux de messages
+    public static final String CLAIM_PURPOSE = "use";
+    public static final String PURPOSE_STREAM = "stream";
+
     @Value("${app.jwt.secret}")
     private String SECRET_KEY;
 
     @Value("${app.jwt.expiration}")
     private long jwtExpiration;
 
+    // Durée de validité (ms) d'un ticket de flux : le temps d'ouvrir la connexion
+    @Value("${app.messages.stream-ticket-ttl:60000}")
+    private long streamTicketTtl;
+
+    // Nombre maximal de jetons vérifiés gardés en mémoire
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private long verifiedCacheSize;
+
+    // Jetons portant l'identité complète (id, rôle, version) : authentification sans accès base
+    @Value("${app.jwt.stateless:false}")
+    private boolean stateless;
+
+    // Clé et parseur construits une seule fois au démarrage
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    // Jetons déjà vérifiés, indexés par empreinte SHA-256 et conservés jusqu'à leur expiration
+    private Cache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Vérifie la signature et l'expiration du jeton et retourne ses claims.
+     * Un jeton déjà vérifié est servi depuis le cache sans nouvelle vérification de signature.
+     * Un jeton sans date d'expiration est refusé.
+     * @throws io.jsonwebtoken.JwtException si le jeton est invalide, expiré ou sans expiration
+     */
+    public Claims verify(String token) {
+        String tokenHash = hash(token);
+        Claims cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Jeton sans date d'expiration");
+        }
+        verifiedTokens.put(tokenHash, claims);
+        return claims;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -34,7 +123,65 @@ public class JwtService {
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (stateless && userDetails instanceof User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+            claims.put(CLAIM_VERSION, user.getTokenVersion());
+            claims.put(CLAIM_STATUS, user.isEnabled() ? AccountStatus.ACTIVE.name() : user.getStatus().name());
+        }
+        return generateToken(claims, userDetails);
+    }
+
+    /**
+     * Indique si le jeton peut être authentifié à partir de ses seuls claims
+     */
+    public boolean isStatelessToken(Claims claims) {
+        return stateless && claims.get(CLAIM_USER_ID) != null && claims.get(CLAIM_VERSION) != null;
+    }
+
+    public Long extractUserId(Claims claims) {
+        return ((Number) claims.get(CLAIM_USER_ID)).longValue();
+    }
+
+    public long extractTokenVersion(Claims claims) {
+        return ((Number) claims.get(CLAIM_VERSION)).longValue();
+    }
+
+    /**
+     * Reconstruit le principal à partir des claims d'un jeton sans état.
+     * Le statut est celui du compte à l'émission ; un changement ultérieur incrémente la version
+     * du compte, ce qui révoque le jeton avant même que ce principal soit construit.
+     */
+    public AuthenticatedUser toPrincipal(Claims claims) {
+        String status = claims.get(CLAIM_STATUS, String.class);
+        return new AuthenticatedUser(
+                extractUserId(claims),
+                claims.getSubject(),
+                Role.valueOf(claims.get(CLAIM_ROLE, String.class)),
+                // Jetons émis avant l'ajout du claim : seuls des comptes actifs pouvaient les obtenir
+                status != null ? AccountStatus.valueOf(status) : AccountStatus.ACTIVE);
+    }
+
+    /**
+     * Ticket de courte durée pour ouvrir un flux de messages depuis un navigateur : EventSource ne peut pas
+     * envoyer l'en-tête Authorization, le ticket est donc passé dans l'URL. Il n'est accepté que sur les flux
+     * et jamais comme jeton d'accès ; le compte est relu à l'ouverture du flux.
+     */
+    public String generateStreamTicket(String email) {
+        long now = System.currentTimeMillis();
+        return Jwts
+                .builder()
+                .claim(CLAIM_PURPOSE, PURPOSE_STREAM)
+                .setSubject(email)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + streamTicketTtl))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public boolean isStreamTicket(Claims claims) {
+        return PURPOSE_STREAM.equals(claims.get(CLAIM_PURPOSE, String.class));
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -44,7 +191,7 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -62,16 +209,16 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verify(token);
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 est garanti par toute implémentation de la JVM
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Cache borné des principaux authentifiés, indexé par email.
+ * Évite une requête sur la table users à chaque appel authentifié ; seuls des instantanés immuables
+ * ({@link AuthenticatedUser}) sont conservés, jamais d'entité JPA. La durée de vie courte
+ * limite la fenêtre d'incohérence, et les services d'administration invalident explicitement
+ * les entrées modifiées (rôle, statut, email, suppression) une fois leur transaction validée.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, AuthenticatedUser> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${app.security.principal-cache.ttl:30000}") long ttlMillis,
+                          @Value("${app.security.principal-cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * Retourne le principal en cache ou le charge depuis la base ; un compte inconnu n'est pas mis en cache
+     * @throws UsernameNotFoundException si aucun compte ne correspond à l'email
+     */
+    public AuthenticatedUser get(String email) {
+        return principals.get(email, key -> userRepository.findByEmail(key)
+                .map(AuthenticatedUser::of)
+                .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé")));
+    }
+
+    /**
+     * Retire l'entrée après validation de la transaction en cours : évincée avant, elle pourrait être
+     * rechargée depuis la ligne pas encore modifiée et conservée jusqu'à expiration
+     */
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    principals.invalidate(email);
+                }
+            });
+        } else {
+            principals.invalidate(email);
+        }
+    }
+}
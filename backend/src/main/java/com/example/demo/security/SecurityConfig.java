@@ -1,5 +1,8 @@
 package com.example.demo.security;
 
+import com.example.demo.dto.CursorPage;
+import com.example.demo.orthanc.dto.DicomStudyPageDTO;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,6 +37,9 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Redispatch asynchrone (fin ou expiration d'un flux SSE) : la requête d'origine a déjà
+                        // été autorisée, et la réponse est engagée
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/api/v1/public/**").permitAll()
                         // Permettre l'accès aux endpoints DICOM sans authentification (temporairement pour les tests)
@@ -60,7 +66,10 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:3000")); // Autoriser le frontend
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Accept"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Accept", "Range"));
+        // Pagination (curseur, page suivante), validateurs des requêtes conditionnelles et plages des téléchargements
+        configuration.setExposedHeaders(List.of(CursorPage.NEXT_CURSOR_HEADER, DicomStudyPageDTO.HAS_NEXT_HEADER,
+                "ETag", "Last-Modified", "Content-Range", "Accept-Ranges"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
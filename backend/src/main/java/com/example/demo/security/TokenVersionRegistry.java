@@ -0,0 +1,95 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versions courantes des jetons par utilisateur, utilisées pour révoquer les jetons sans état.
+ * La table est rechargée périodiquement depuis la base, ce qui propage en quelques secondes
+ * une révocation faite sur un autre nœud ; un utilisateur inconnu est lu à la demande.
+ * Les versions ne font que croître : le rechargement fusionne la base avec la table en gardant la plus
+ * grande, si bien qu'une lecture antérieure à une révocation locale ne peut pas l'annuler. Une révocation
+ * n'est publiée qu'après validation de la transaction qui l'a persistée.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+
+    // Version attribuée aux comptes supprimés : aucun jeton ne peut la porter
+    private static final long REVOKED = -1L;
+
+    private final UserRepository userRepository;
+
+    @Value("${app.jwt.stateless:false}")
+    private boolean stateless;
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.jwt.version-refresh:30000}")
+    public void refresh() {
+        if (!stateless) {
+            return;
+        }
+        Map<Long, Long> loaded = new HashMap<>();
+        for (Object[] row : userRepository.findAllTokenVersions()) {
+            loaded.put((Long) row[0], (Long) row[1]);
+        }
+        // Comptes supprimés depuis : oubliés, puis relus à la demande (donc révoqués)
+        versions.keySet().retainAll(loaded.keySet());
+        loaded.forEach(this::raise);
+        log.debug("Versions de jetons rechargées pour {} utilisateurs", loaded.size());
+    }
+
+    public boolean isCurrent(Long userId, long version) {
+        Long current = versions.computeIfAbsent(userId,
+                id -> userRepository.findTokenVersionById(id).orElse(REVOKED));
+        return current != REVOKED && current == version;
+    }
+
+    /**
+     * Incrémente la version du compte (à persister par l'appelant) : ses jetons actuels deviennent invalides
+     * dès la validation de la transaction en cours
+     */
+    public void bump(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        if (user.getId() != null) {
+            publish(user.getId(), user.getTokenVersion());
+        }
+    }
+
+    public void revoke(Long userId) {
+        publish(userId, REVOKED);
+    }
+
+    // Une transaction annulée ne laisse pas en mémoire une version que la base n'a pas
+    private void publish(Long userId, long version) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    raise(userId, version);
+                }
+            });
+        } else {
+            raise(userId, version);
+        }
+    }
+
+    // Une révocation est définitive ; sinon la plus grande version l'emporte
+    private void raise(Long userId, long version) {
+        versions.merge(userId, version, (current, candidate) ->
+                current == REVOKED || candidate == REVOKED ? REVOKED : Math.max(current, candidate));
+    }
+}
@@ -10,6 +10,8 @@ import com.example.demo.repository.AppointmentRepository;
 import com.example.demo.repository.MedicalImageRepository;
 import com.example.demo.repository.MedicalRecordRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.PrincipalCache;
+import com.example.demo.security.TokenVersionRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,7 +20,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 @Service
 @Transactional
@@ -30,17 +32,17 @@ public class AdminService {
     private final MedicalRecordRepository medicalRecordRepository;
     private final MedicalImageRepository medicalImageRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
+    @Transactional(readOnly = true)
     public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(this::mapToUserDTO)
-                .collect(Collectors.toList());
+        return userRepository.findAllUserDTOs();
     }
 
+    @Transactional(readOnly = true)
     public List<UserDTO> getUsersByRole(Role role) {
-        return userRepository.findByRole(role).stream()
-                .map(this::mapToUserDTO)
-                .collect(Collectors.toList());
+        return userRepository.findUserDTOsByRole(role);
     }
 
     public UserDTO getUserById(Long id) {
@@ -58,12 +60,25 @@ public class AdminService {
             throw new RuntimeException("Email déjà utilisé");
         }
 
+        String previousEmail = user.getEmail();
+        if (user.getRole() != userDTO.getRole() || !previousEmail.equals(userDTO.getEmail())) {
+            // Le rôle et l'email sont portés par les jetons sans état déjà émis : ils sont invalidés.
+            // Un simple renommage ne touche pas aux sessions (le nom n'est plus dans les jetons).
+            tokenVersionRegistry.bump(user);
+        }
+        if (!Objects.equals(user.getFirstName(), userDTO.getFirstName())
+                || !Objects.equals(user.getLastName(), userDTO.getLastName())) {
+            // Nom affiché dans le fil d'articles : change son validateur
+            user.setProfileVersion(user.getProfileVersion() + 1);
+        }
         user.setFirstName(userDTO.getFirstName());
         user.setLastName(userDTO.getLastName());
         user.setEmail(userDTO.getEmail());
         user.setRole(userDTO.getRole());
 
         User updatedUser = userRepository.save(user);
+        principalCache.evict(previousEmail);
+        principalCache.evict(updatedUser.getEmail());
         return mapToUserDTO(updatedUser);
     }
 
@@ -80,6 +95,8 @@ public class AdminService {
             changeStatus(id, AccountStatus.SUSPENDED);
         } else {
             userRepository.delete(user);
+            principalCache.evict(user.getEmail());
+            tokenVersionRegistry.revoke(user.getId());
         }
     }
 
@@ -137,7 +154,9 @@ public class AdminService {
         }
 
         user.setStatus(status);
+        tokenVersionRegistry.bump(user);
         userRepository.save(user);
+        principalCache.evict(user.getEmail());
     }
 
     private UserDTO mapToUserDTO(User user) {
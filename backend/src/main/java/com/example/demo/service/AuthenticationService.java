@@ -7,6 +7,8 @@ import com.example.demo.model.Role;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.JwtService;
+import com.example.demo.security.PrincipalCache;
+import com.example.demo.security.TokenVersionRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -24,6 +26,8 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     public AuthenticationResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -67,7 +71,9 @@ public class AuthenticationService {
             return; // déjà activé
         }
         user.setStatus(AccountStatus.ACTIVE);
+        tokenVersionRegistry.bump(user);
         userRepository.save(user);
+        principalCache.evict(email);
     }
 
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
@@ -30,7 +30,12 @@ public class DicomService {
     @Value("${orthanc.password:orthanc}")
     private String orthancPassword;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Client partagé (pool de connexions keep-alive) défini dans OrthancConfig
+    private final RestTemplate orthancRestTemplate;
+
+    public DicomService(RestTemplate orthancRestTemplate) {
+        this.orthancRestTemplate = orthancRestTemplate;
+    }
 
     /**
      * Télécharge un fichier DICOM vers Orthanc.
@@ -48,7 +53,7 @@ public class DicomService {
         HttpEntity<byte[]> requestEntity = new HttpEntity<>(file.getBytes(), headers);
 
         // Envoyer la requête
-        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+        ResponseEntity<Map<String, Object>> response = orthancRestTemplate.exchange(
                 orthancApiUrl + "/instances",
                 HttpMethod.POST,
                 requestEntity,
@@ -74,7 +79,7 @@ public class DicomService {
         HttpHeaders headers = createAuthHeaders();
         HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+        ResponseEntity<Map<String, Object>> response = orthancRestTemplate.exchange(
                 orthancApiUrl + "/instances/" + instanceId,
                 HttpMethod.GET,
                 requestEntity,
@@ -124,7 +129,7 @@ public class DicomService {
         HttpHeaders headers = createAuthHeaders();
         HttpEntity<String> requestEntity = new HttpEntity<>(headers);
 
-        restTemplate.exchange(
+        orthancRestTemplate.exchange(
                 orthancApiUrl + "/instances/" + instanceId,
                 HttpMethod.DELETE,
                 requestEntity,
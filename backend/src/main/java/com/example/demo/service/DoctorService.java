@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.MedicalRecordDTO;
 import com.example.demo.dto.MessageDTO;
 import com.example.demo.dto.UserDTO;
@@ -10,17 +11,23 @@ import com.example.demo.model.*;
 import com.example.demo.repository.AppointmentRepository;
 import com.example.demo.repository.MedicalRecordRepository;
 import com.example.demo.repository.MessageRepository;
+import com.example.demo.repository.UnreadMessageCounterRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuthenticatedUser;
 import com.example.demo.repository.MedicalImageRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,44 +40,54 @@ public class DoctorService {
     private final MessageRepository messageRepository;
     private final MedicalRecordRepository medicalRecordRepository;
     private final MedicalImageRepository medicalImageRepository;
+    private final MedicalRecordImages medicalRecordImages;
+    private final UnreadMessageCounterRepository unreadMessageCounterRepository;
+    private final MessageStreamRegistry messageStreamRegistry;
     private final EmailService emailService;
 
     /**
      * Récupère tous les médecins du système
      */
+    @Transactional(readOnly = true)
     public List<UserDTO> getAllDoctors() {
-        return userRepository.findByRole(Role.DOCTOR).stream()
-                .map(this::mapToUserDTO)
-                .collect(Collectors.toList());
+        return userRepository.findUserDTOsByRole(Role.DOCTOR);
     }
 
     /**
      * Récupère tous les patients du système
      */
+    @Transactional(readOnly = true)
     public List<UserDTO> getAllPatients() {
-        return userRepository.findByRole(Role.PATIENT).stream()
-                .map(this::mapToUserDTO)
-                .collect(Collectors.toList());
+        return userRepository.findUserDTOsByRole(Role.PATIENT);
     }
 
     /**
      * Récupère tous les rendez-vous d'un médecin
      */
+    @Transactional(readOnly = true)
     public List<AppointmentDTO> getDoctorAppointments() {
         User currentDoctor = getCurrentUser();
-        return appointmentRepository.findByDoctor(currentDoctor).stream()
-                .map(this::mapToAppointmentDTO)
-                .collect(Collectors.toList());
+        return appointmentRepository.findDTOsByDoctorId(currentDoctor.getId());
+    }
+
+    /**
+     * Récupère une page des rendez-vous du médecin, triés par date
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentDTO> getDoctorAppointments(String cursor, int limit) {
+        User currentDoctor = getCurrentUser();
+        CursorPage.Key key = CursorPage.decode(cursor, false);
+        return CursorPage.of(appointmentRepository.findDTOsByDoctorIdAfter(currentDoctor.getId(), key.at(), key.id(),
+                PageRequest.ofSize(limit + 1)), limit, AppointmentDTO::getDateTime, AppointmentDTO::getId);
     }
 
     /**
      * Récupère les rendez-vous d'un médecin selon un statut
      */
+    @Transactional(readOnly = true)
     public List<AppointmentDTO> getDoctorAppointmentsByStatus(AppointmentStatus status) {
         User currentDoctor = getCurrentUser();
-        return appointmentRepository.findByDoctorAndStatus(currentDoctor, status).stream()
-                .map(this::mapToAppointmentDTO)
-                .collect(Collectors.toList());
+        return appointmentRepository.findDTOsByDoctorIdAndStatus(currentDoctor.getId(), status);
     }
 
     /**
@@ -112,49 +129,113 @@ public class DoctorService {
                 .build();
 
         Message savedMessage = messageRepository.save(message);
+        unreadMessageCounterRepository.recordNewMessage(receiver.getId(), currentDoctor.getId());
         // Send email notification
         emailService.sendSimpleMessage(receiver.getEmail(), "Nouveau message", "Vous avez reçu un nouveau message de " + currentDoctor.getFirstName() + " " + currentDoctor.getLastName() + ".");
-        return mapToMessageDTO(savedMessage);
+        MessageDTO sent = mapToMessageDTO(savedMessage);
+        messageStreamRegistry.publishAfterCommit(sent);
+        return sent;
     }
 
     /**
      * Récupère la conversation avec un utilisateur spécifique
      */
+    @Transactional(readOnly = true)
     public List<MessageDTO> getConversation(Long userId) {
         User currentDoctor = getCurrentUser();
-        User otherUser = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
 
-        return messageRepository.findConversation(currentDoctor, otherUser).stream()
-                .map(this::mapToMessageDTO)
-                .collect(Collectors.toList());
+        return messageRepository.findConversationDTOs(currentDoctor.getId(), userId);
+    }
+
+    /**
+     * Récupère les messages de la conversation reçus après le dernier identifiant connu du client
+     */
+    @Transactional(readOnly = true)
+    public List<MessageDTO> getConversationSince(Long userId, Long afterId) {
+        User currentDoctor = getCurrentUser();
+        return messageRepository.findConversationDTOsAfterId(currentDoctor.getId(), userId, afterId);
+    }
+
+    /**
+     * Ouvre le flux des nouveaux messages de l'utilisateur connecté
+     */
+    public SseEmitter subscribeToMessages() {
+        return messageStreamRegistry.subscribe(getCurrentUser().getId());
+    }
+
+    /**
+     * Récupère une page de la conversation, des messages les plus récents vers les plus anciens.
+     * Les messages de la page sont renvoyés dans l'ordre chronologique.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MessageDTO> getConversation(Long userId, String cursor, int limit) {
+        User currentDoctor = getCurrentUser();
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
+
+        CursorPage.Key key = CursorPage.decode(cursor, true);
+        CursorPage<MessageDTO> page = CursorPage.of(
+                messageRepository.findConversationDTOsBefore(currentDoctor.getId(), userId, key.at(), key.id(),
+                        limit + 1),
+                limit, MessageDTO::getSentAt, MessageDTO::getId);
+        List<MessageDTO> chronological = new ArrayList<>(page.getContent());
+        Collections.reverse(chronological);
+        page.setContent(chronological);
+        return page;
     }
 
     /**
      * Marque comme lus tous les messages d'une conversation
      */
-    public void markMessagesAsRead(Long userId) {
+    public int markMessagesAsRead(Long userId) {
         User currentDoctor = getCurrentUser();
-        User otherUser = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
 
-        List<Message> unreadMessages = messageRepository.findUnreadMessages(otherUser, currentDoctor);
-        
-        unreadMessages.forEach(message -> {
-            message.setRead(true);
-            messageRepository.save(message);
-        });
+        int updated = messageRepository.markAsRead(userId, currentDoctor.getId());
+        if (updated > 0) {
+            unreadMessageCounterRepository.decrement(currentDoctor.getId(), userId, updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Nombre de messages non lus par expéditeur
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getUnreadCounts() {
+        User currentDoctor = getCurrentUser();
+        return unreadMessageCounterRepository.findByIdReceiverIdAndUnreadCountGreaterThan(currentDoctor.getId(), 0).stream()
+                .collect(Collectors.toMap(counter -> counter.getId().getSenderId(), UnreadMessageCounter::getUnreadCount));
     }
 
     /**
      * Récupère les dossiers médicaux créés par le médecin
      */
+    @Transactional(readOnly = true)
     public List<MedicalRecordDTO> getDoctorMedicalRecords() {
         User currentUser = getCurrentUser();
-        List<MedicalRecord> records = medicalRecordRepository.findByDoctor(currentUser);
-        return records.stream()
-                .map(this::mapToMedicalRecordDTO)
-                .collect(Collectors.toList());
+        return medicalRecordImages.attachForDoctor(medicalRecordRepository.findDTOsByDoctorId(currentUser.getId()),
+                currentUser.getId());
+    }
+
+    /**
+     * Récupère une page des dossiers médicaux créés par le médecin, triés par date de création
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MedicalRecordDTO> getDoctorMedicalRecords(String cursor, int limit) {
+        User currentUser = getCurrentUser();
+        CursorPage.Key key = CursorPage.decode(cursor, false);
+        CursorPage<MedicalRecordDTO> page = CursorPage.of(medicalRecordRepository.findDTOsByDoctorIdAfter(
+                currentUser.getId(), key.at(), key.id(), PageRequest.ofSize(limit + 1)),
+                limit, MedicalRecordDTO::getCreatedAt, MedicalRecordDTO::getId);
+        medicalRecordImages.attach(page.getContent());
+        return page;
     }
 
     public MedicalRecordDTO getMedicalRecordDetails(Long id) {
@@ -163,7 +244,7 @@ public class DoctorService {
                 .orElseThrow(() -> new RuntimeException("Dossier médical non trouvé"));
 
         // Vérifier que le dossier appartient bien au docteur
-        if (!record.getDoctor().equals(currentUser)) {
+        if (!record.getDoctor().getId().equals(currentUser.getId())) {
             throw new RuntimeException("Accès non autorisé à ce dossier médical");
         }
 
@@ -359,8 +440,10 @@ public class DoctorService {
                 throw new RuntimeException("Aucune authentification trouvée");
             }
             
-            System.out.println("DoctorService: Authentication - Principal: " + authentication.getPrincipal() + ", Name: " + authentication.getName());
-            System.out.println("DoctorService: Authorities: " + authentication.getAuthorities());
+            // Le principal est un instantané immuable : référence vers l'entité, chargée au premier accès à un champ
+            if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+                return userRepository.getReferenceById(principal.id());
+            }
             
             String email = authentication.getName();
             User user = userRepository.findByEmail(email)
@@ -382,16 +465,6 @@ public class DoctorService {
         }
     }
     
-    private UserDTO mapToUserDTO(User user) {
-        return UserDTO.builder()
-                .id(user.getId())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .build();
-    }
-    
     private AppointmentDTO mapToAppointmentDTO(Appointment appointment) {
         return AppointmentDTO.builder()
                 .id(appointment.getId())
@@ -419,6 +492,9 @@ public class DoctorService {
                 .build();
     }
     
+    /**
+     * Convertit un dossier chargé en entité en DTO, avec les images déjà rattachées au dossier
+     */
     private MedicalRecordDTO mapToMedicalRecordDTO(MedicalRecord record) {
         List<MedicalImageDTO> imageDTOs = record.getMedicalImages().stream()
                 .map(image -> MedicalImageDTO.builder()
@@ -0,0 +1,194 @@
+package com.example.demo.service;
+
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.model.EmailStatus;
+import com.example.demo.repository.EmailOutboxRepository;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expédie en arrière-plan les emails de la table email_outbox.
+ * Un lot est réservé dans une courte transaction (SKIP LOCKED, puis bail sur next_attempt_at)
+ * et envoyé hors transaction sur une seule connexion SMTP ; aucune connexion à la base n'est
+ * donc retenue pendant l'échange avec le serveur de mail. Les échecs sont retentés avec un
+ * délai exponentiel, puis marqués DEAD au-delà du nombre maximal de tentatives. Un destinataire
+ * invalide est marqué DEAD sans tentative d'envoi : il ne doit pas faire échouer le reste du lot.
+ * Les emails envoyés et abandonnés sont purgés par tranches une fois leur durée de rétention écoulée.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.mail.from:no-reply@medical-app.com}")
+    private String from;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.initial-backoff:30000}")
+    private long initialBackoff;
+
+    @Value("${app.mail.outbox.max-backoff:3600000}")
+    private long maxBackoff;
+
+    // Durée de réservation d'un lot : passé ce délai, un lot non confirmé redevient éligible
+    @Value("${app.mail.outbox.lease:300000}")
+    private long lease;
+
+    // Rétention des emails envoyés (7 jours) et abandonnés (30 jours, conservés pour diagnostic)
+    @Value("${app.mail.outbox.sent-retention:604800000}")
+    private long sentRetention;
+
+    @Value("${app.mail.outbox.dead-retention:2592000000}")
+    private long deadRetention;
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:5000}")
+    public void dispatch() {
+        List<EmailOutbox> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+        } while (batch.size() >= batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.purge-interval:3600000}")
+    public void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime sentBefore = now.minus(Duration.ofMillis(sentRetention));
+        LocalDateTime deadBefore = now.minus(Duration.ofMillis(deadRetention));
+        int deleted = 0;
+        Integer purged;
+        do {
+            // Une transaction par tranche : les verrous ne sont jamais tenus sur toute la purge
+            purged = transactionTemplate.execute(status ->
+                    emailOutboxRepository.deleteExpired(sentBefore, deadBefore, PURGE_BATCH_SIZE));
+            deleted += purged != null ? purged : 0;
+        } while (purged != null && purged >= PURGE_BATCH_SIZE);
+        if (deleted > 0) {
+            log.info("Emails purgés de la file d'envoi: {}", deleted);
+        }
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = emailOutboxRepository.lockDueBatch(now, batchSize);
+            due.forEach(email -> email.setNextAttemptAt(now.plus(Duration.ofMillis(lease))));
+            return due;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    private void deliver(List<EmailOutbox> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> deliverable = new ArrayList<>(batch.size());
+        List<SimpleMailMessage> messages = new ArrayList<>(batch.size());
+        for (EmailOutbox email : batch) {
+            try {
+                // JavaMailSender convertit tout le lot avant d'envoyer : une adresse illisible le ferait échouer en entier
+                new InternetAddress(email.getRecipient(), true).validate();
+            } catch (AddressException e) {
+                reject(email, e);
+                continue;
+            }
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(from);
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            deliverable.add(email);
+            messages.add(message);
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        MailException batchError = null;
+        if (!messages.isEmpty()) {
+            try {
+                // Un seul appel : JavaMailSender réutilise la même connexion SMTP pour tout le lot
+                mailSender.send(messages.toArray(SimpleMailMessage[]::new));
+            } catch (MailSendException e) {
+                failures = e.getFailedMessages();
+                if (failures.isEmpty()) {
+                    batchError = e;
+                }
+            } catch (MailException e) {
+                batchError = e;
+            }
+        }
+
+        int sent = 0;
+        for (int i = 0; i < deliverable.size(); i++) {
+            EmailOutbox email = deliverable.get(i);
+            Exception error = batchError != null ? batchError : failures.get(messages.get(i));
+            if (error == null) {
+                email.setStatus(EmailStatus.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                sent++;
+            } else {
+                scheduleRetry(email, error, now);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(batch));
+        log.info("Emails envoyés: {}/{}", sent, batch.size());
+    }
+
+    private void reject(EmailOutbox email, AddressException error) {
+        // Aucune nouvelle tentative ne rendra l'adresse valide
+        email.setAttempts(email.getAttempts() + 1);
+        email.setStatus(EmailStatus.DEAD);
+        email.setLastError(truncate("Adresse invalide: " + error.getMessage()));
+        log.error("Email {} abandonné, destinataire invalide {}: {}", email.getId(), email.getRecipient(),
+                error.getMessage());
+    }
+
+    private void scheduleRetry(EmailOutbox email, Exception error, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        String message = String.valueOf(error.getMessage());
+        email.setLastError(truncate(message));
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailStatus.DEAD);
+            log.error("Email {} vers {} abandonné après {} tentatives: {}", email.getId(), email.getRecipient(),
+                    attempts, message);
+            return;
+        }
+        long delay = Math.min(maxBackoff, initialBackoff << Math.min(attempts - 1, 30));
+        email.setNextAttemptAt(now.plus(Duration.ofMillis(delay)));
+        log.warn("Échec d'envoi de l'email {} vers {} (tentative {}), nouvel essai dans {} ms: {}",
+                email.getId(), email.getRecipient(), attempts, delay, message);
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -1,39 +1,67 @@
 package com.example.demo.service;
 
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.repository.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private static final String INSERT_SQL = "INSERT INTO email_outbox "
+            + "(recipient, subject, body, status, attempts, next_attempt_at, created_at) "
+            + "VALUES (?, ?, ?, ?, 0, ?, ?)";
 
-    @Value("${spring.mail.from:no-reply@medical-app.com}")
-    private String from;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     /**
-     * Send a simple text email.
+     * Queue a simple text email in the outbox.
+     * The row is written in the caller's transaction, so the email is only sent if that
+     * transaction commits; delivery happens in the background (see EmailOutboxDispatcher).
      *
      * @param to      recipient email address
      * @param subject subject of the email
      * @param text    body of the email
      */
+    @Transactional
     public void sendSimpleMessage(String to, String subject, String text) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(from);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(text);
-            mailSender.send(message);
-        } catch (Exception e) {
-            log.error("Failed to send email to {}", to, e);
+        emailOutboxRepository.save(EmailOutbox.pending(to, subject, text));
+        log.debug("Email to {} queued in the outbox", to);
+    }
+
+    /**
+     * Queue the same email for several recipients with a single JDBC batch insert.
+     *
+     * @param recipients recipient email addresses
+     * @param subject    subject of the email
+     * @param text       body of the email
+     */
+    @Transactional
+    public void sendToAll(Collection<String> recipients, String subject, String text) {
+        if (recipients.isEmpty()) {
+            return;
         }
+        List<EmailOutbox> emails = recipients.stream()
+                .map(to -> EmailOutbox.pending(to, subject, text))
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, emails, emails.size(), (ps, email) -> {
+            ps.setString(1, email.getRecipient());
+            ps.setString(2, email.getSubject());
+            ps.setString(3, email.getBody());
+            ps.setString(4, email.getStatus().name());
+            ps.setTimestamp(5, Timestamp.valueOf(email.getNextAttemptAt()));
+            ps.setTimestamp(6, Timestamp.valueOf(email.getCreatedAt()));
+        });
+        log.debug("{} emails queued in the outbox", emails.size());
     }
 }
@@ -0,0 +1,56 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MedicalImageDTO;
+import com.example.demo.dto.MedicalRecordDTO;
+import com.example.demo.repository.MedicalImageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Complète des dossiers médicaux projetés en DTO avec leurs images, en une seule requête
+ * pour toute la liste (partagé par les vues médecin et infirmier).
+ * Une page est complétée par liste d'identifiants ; les listes complètes, non bornées, lisent les images
+ * par jointure afin de ne jamais dépasser la limite de paramètres du pilote.
+ */
+@Component
+@RequiredArgsConstructor
+public class MedicalRecordImages {
+
+    private final MedicalImageRepository medicalImageRepository;
+
+    // Page de dossiers : au plus quelques dizaines d'identifiants
+    public List<MedicalRecordDTO> attach(List<MedicalRecordDTO> records) {
+        if (records.isEmpty()) {
+            return records;
+        }
+        return attach(records, medicalImageRepository.findDTOsByMedicalRecordIds(
+                records.stream().map(MedicalRecordDTO::getId).toList()));
+    }
+
+    // Tous les dossiers d'un médecin
+    public List<MedicalRecordDTO> attachForDoctor(List<MedicalRecordDTO> records, Long doctorId) {
+        return records.isEmpty() ? records : attach(records, medicalImageRepository.findDTOsByDoctorId(doctorId));
+    }
+
+    // Tous les dossiers
+    public List<MedicalRecordDTO> attachAll(List<MedicalRecordDTO> records) {
+        return records.isEmpty() ? records : attach(records, medicalImageRepository.findAllDTOs());
+    }
+
+    // Les images d'un dossier créé après la lecture des dossiers sont ignorées
+    private static List<MedicalRecordDTO> attach(List<MedicalRecordDTO> records, List<MedicalImageDTO> images) {
+        Map<Long, List<MedicalImageDTO>> imagesByRecord = images.stream()
+                .collect(Collectors.groupingBy(MedicalImageDTO::getMedicalRecordId));
+        records.forEach(record -> {
+            List<MedicalImageDTO> recordImages = imagesByRecord.getOrDefault(record.getId(), new ArrayList<>());
+            record.setMedicalImages(recordImages);
+            record.setImageCount(recordImages.size());
+        });
+        return records;
+    }
+}
@@ -5,6 +5,7 @@ import com.example.demo.model.MedicalReport;
 import com.example.demo.model.User;
 import com.example.demo.repository.MedicalReportRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -62,6 +63,10 @@ public class MedicalReportService {
 
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        // Le principal est un instantané immuable : référence vers l'entité, chargée au premier accès à un champ
+        if (auth.getPrincipal() instanceof AuthenticatedUser principal) {
+            return userRepository.getReferenceById(principal.id());
+        }
         String email = auth.getName();
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
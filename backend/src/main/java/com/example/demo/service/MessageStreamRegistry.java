@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MessageDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Abonnements Server-Sent Events aux nouveaux messages, par utilisateur (un flux par onglet ouvert).
+ * Un message envoyé est poussé au destinataire et aux autres sessions de l'expéditeur une fois la
+ * transaction validée ; les clients ne relisent ensuite que les messages postérieurs au dernier reçu.
+ */
+@Slf4j
+@Component
+public class MessageStreamRegistry {
+
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    @Value("${app.messages.stream-timeout:1800000}")
+    private long streamTimeout;
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = newEmitter();
+        emitters.compute(userId, (id, userEmitters) -> {
+            Set<SseEmitter> registered = userEmitters != null ? userEmitters : new CopyOnWriteArraySet<>();
+            registered.add(emitter);
+            return registered;
+        });
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(e -> remove(userId, emitter));
+        try {
+            // Premier événement : confirme l'abonnement et libère les en-têtes de la réponse
+            emitter.send(SseEmitter.event().comment("connecté"));
+        } catch (IOException e) {
+            remove(userId, emitter);
+        }
+        log.debug("Flux de messages ouvert pour l'utilisateur {}", userId);
+        return emitter;
+    }
+
+    /**
+     * Publie le message à la validation de la transaction courante (immédiatement s'il n'y en a pas),
+     * pour ne jamais annoncer un message qui serait ensuite annulé
+     */
+    public void publishAfterCommit(MessageDTO message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(message);
+            }
+        });
+    }
+
+    public void publish(MessageDTO message) {
+        send(message.getReceiverId(), message);
+        send(message.getSenderId(), message);
+    }
+
+    private void send(Long userId, MessageDTO message) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : userEmitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(message.getId()))
+                        .name("message")
+                        .data(message, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // Client déconnecté : le flux sera rouvert par le navigateur
+                remove(userId, emitter);
+            }
+        }
+    }
+
+    /**
+     * Commentaire périodique pour garder les connexions ouvertes à travers les proxys
+     * et détecter les clients partis
+     */
+    @Scheduled(fixedDelayString = "${app.messages.stream-heartbeat:25000}")
+    public void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> userEmitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                remove(userId, emitter);
+            }
+        }));
+    }
+
+    // Nombre de flux ouverts pour un utilisateur
+    int subscriptions(Long userId) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        return userEmitters != null ? userEmitters.size() : 0;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(streamTimeout);
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.MessageDTO;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.dto.MedicalRecordDTO;
@@ -11,15 +12,22 @@ import com.example.demo.repository.AppointmentRepository;
 import com.example.demo.repository.MessageRepository;
 import com.example.demo.repository.MedicalRecordRepository;
 import com.example.demo.repository.MedicalImageRepository;
+import com.example.demo.repository.UnreadMessageCounterRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,21 +40,34 @@ public class NurseService {
     private final MessageRepository messageRepository;
     private final MedicalRecordRepository medicalRecordRepository;
     private final MedicalImageRepository medicalImageRepository;
+    private final MedicalRecordImages medicalRecordImages;
+    private final UnreadMessageCounterRepository unreadMessageCounterRepository;
+    private final MessageStreamRegistry messageStreamRegistry;
     private final EmailService emailService;
 
+    @Transactional(readOnly = true)
     public List<UserDTO> getAllDoctors() {
-        return userRepository.findByRole(Role.DOCTOR).stream()
-                .map(this::mapToUserDTO)
-                .collect(Collectors.toList());
+        return userRepository.findUserDTOsByRole(Role.DOCTOR);
     }
 
+    @Transactional(readOnly = true)
     public List<AppointmentDTO> getDoctorAppointments(Long doctorId) {
-        User doctor = userRepository.findById(doctorId)
-                .orElseThrow(() -> new RuntimeException("Médecin non trouvé"));
+        if (!userRepository.existsById(doctorId)) {
+            throw new RuntimeException("Médecin non trouvé");
+        }
 
-        return appointmentRepository.findByDoctor(doctor).stream()
-                .map(this::mapToAppointmentDTO)
-                .collect(Collectors.toList());
+        return appointmentRepository.findDTOsByDoctorId(doctorId);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentDTO> getDoctorAppointments(Long doctorId, String cursor, int limit) {
+        if (!userRepository.existsById(doctorId)) {
+            throw new RuntimeException("Médecin non trouvé");
+        }
+
+        CursorPage.Key key = CursorPage.decode(cursor, false);
+        return CursorPage.of(appointmentRepository.findDTOsByDoctorIdAfter(doctorId, key.at(), key.id(),
+                PageRequest.ofSize(limit + 1)), limit, AppointmentDTO::getDateTime, AppointmentDTO::getId);
     }
 
     public AppointmentDTO createAppointment(AppointmentDTO appointmentDTO) {
@@ -116,38 +137,99 @@ public class NurseService {
                 .build();
 
         Message savedMessage = messageRepository.save(message);
+        unreadMessageCounterRepository.recordNewMessage(receiver.getId(), currentUser.getId());
         // Send email notification
         emailService.sendSimpleMessage(receiver.getEmail(), "Nouveau message", "Vous avez reçu un nouveau message de " + currentUser.getFirstName() + " " + currentUser.getLastName() + ".");
-        return mapToMessageDTO(savedMessage);
+        MessageDTO sent = mapToMessageDTO(savedMessage);
+        messageStreamRegistry.publishAfterCommit(sent);
+        return sent;
     }
 
+    @Transactional(readOnly = true)
     public List<MessageDTO> getConversation(Long userId) {
         User currentUser = getCurrentUser();
-        User otherUser = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
+
+        return messageRepository.findConversationDTOs(currentUser.getId(), userId);
+    }
+
+    /**
+     * Récupère les messages de la conversation reçus après le dernier identifiant connu du client
+     */
+    @Transactional(readOnly = true)
+    public List<MessageDTO> getConversationSince(Long userId, Long afterId) {
+        User currentUser = getCurrentUser();
+        return messageRepository.findConversationDTOsAfterId(currentUser.getId(), userId, afterId);
+    }
+
+    /**
+     * Ouvre le flux des nouveaux messages de l'utilisateur connecté
+     */
+    public SseEmitter subscribeToMessages() {
+        return messageStreamRegistry.subscribe(getCurrentUser().getId());
+    }
+
+    /**
+     * Nombre de messages non lus par expéditeur
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getUnreadCounts() {
+        User currentUser = getCurrentUser();
+        return unreadMessageCounterRepository.findByIdReceiverIdAndUnreadCountGreaterThan(currentUser.getId(), 0).stream()
+                .collect(Collectors.toMap(counter -> counter.getId().getSenderId(), UnreadMessageCounter::getUnreadCount));
+    }
+
+    /**
+     * Récupère une page de la conversation, des messages les plus récents vers les plus anciens.
+     * Les messages de la page sont renvoyés dans l'ordre chronologique.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MessageDTO> getConversation(Long userId, String cursor, int limit) {
+        User currentUser = getCurrentUser();
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
+
+        CursorPage.Key key = CursorPage.decode(cursor, true);
+        CursorPage<MessageDTO> page = CursorPage.of(
+                messageRepository.findConversationDTOsBefore(currentUser.getId(), userId, key.at(), key.id(),
+                        limit + 1),
+                limit, MessageDTO::getSentAt, MessageDTO::getId);
+        List<MessageDTO> chronological = new ArrayList<>(page.getContent());
+        Collections.reverse(chronological);
+        page.setContent(chronological);
+        return page;
+    }
 
-        return messageRepository.findConversation(currentUser, otherUser).stream()
-                .map(this::mapToMessageDTO)
-                .collect(Collectors.toList());
+    /**
+     * Marque comme lus tous les messages d'une conversation
+     */
+    public int markMessagesAsRead(Long userId) {
+        User currentUser = getCurrentUser();
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
+
+        int updated = messageRepository.markAsRead(userId, currentUser.getId());
+        if (updated > 0) {
+            unreadMessageCounterRepository.decrement(currentUser.getId(), userId, updated);
+        }
+        return updated;
     }
 
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Le principal est un instantané immuable : référence vers l'entité, chargée au premier accès à un champ
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return userRepository.getReferenceById(principal.id());
+        }
         String email = authentication.getName();
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non connecté"));
     }
 
-    private UserDTO mapToUserDTO(User user) {
-        return UserDTO.builder()
-                .id(user.getId())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .build();
-    }
-
     private AppointmentDTO mapToAppointmentDTO(Appointment appointment) {
         return AppointmentDTO.builder()
                 .id(appointment.getId())
@@ -177,18 +259,32 @@ public class NurseService {
 
     /* ======== Appointments ======== */
 
+    @Transactional(readOnly = true)
     public List<AppointmentDTO> getAllAppointments() {
-        return appointmentRepository.findAll().stream()
-                .map(this::mapToAppointmentDTO)
-                .collect(Collectors.toList());
+        return appointmentRepository.findAllDTOs();
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentDTO> getAllAppointments(String cursor, int limit) {
+        CursorPage.Key key = CursorPage.decode(cursor, false);
+        return CursorPage.of(appointmentRepository.findDTOsAfter(key.at(), key.id(), PageRequest.ofSize(limit + 1)),
+                limit, AppointmentDTO::getDateTime, AppointmentDTO::getId);
     }
 
     /* ======== Medical Records ======== */
 
+    @Transactional(readOnly = true)
     public List<MedicalRecordDTO> getAllMedicalRecords() {
-        return medicalRecordRepository.findAll().stream()
-                .map(this::mapToMedicalRecordDTO)
-                .collect(Collectors.toList());
+        return medicalRecordImages.attachAll(medicalRecordRepository.findAllDTOs());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<MedicalRecordDTO> getAllMedicalRecords(String cursor, int limit) {
+        CursorPage.Key key = CursorPage.decode(cursor, false);
+        CursorPage<MedicalRecordDTO> page = CursorPage.of(medicalRecordRepository.findDTOsAfter(key.at(), key.id(),
+                PageRequest.ofSize(limit + 1)), limit, MedicalRecordDTO::getCreatedAt, MedicalRecordDTO::getId);
+        medicalRecordImages.attach(page.getContent());
+        return page;
     }
 
     public MedicalRecordDTO getMedicalRecordDetails(Long id) {
@@ -230,6 +326,9 @@ public class NurseService {
         medicalRecordRepository.delete(rec);
     }
 
+    /**
+     * Convertit un dossier chargé en entité en DTO, avec les images déjà rattachées au dossier
+     */
     private MedicalRecordDTO mapToMedicalRecordDTO(MedicalRecord record) {
         List<MedicalImageDTO> imageDTOs = record.getMedicalImages() == null ? List.of() :
                 record.getMedicalImages().stream()
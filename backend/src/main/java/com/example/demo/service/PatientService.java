@@ -1,23 +1,30 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.dto.MedicalRecordDTO;
 import com.example.demo.dto.MessageDTO;
 import com.example.demo.service.EmailService;
 import com.example.demo.model.*;
 import com.example.demo.repository.AppointmentRepository;
+import com.example.demo.repository.UnreadMessageCounterRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.AuthenticatedUser;
 import com.example.demo.repository.MedicalRecordRepository;
 import com.example.demo.repository.MessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -32,19 +39,27 @@ public class PatientService {
     private final AppointmentRepository appointmentRepository;
     private final MedicalRecordRepository medicalRecordRepository;
     private final MessageRepository messageRepository;
+    private final UnreadMessageCounterRepository unreadMessageCounterRepository;
+    private final MessageStreamRegistry messageStreamRegistry;
     private final EmailService emailService;
 
+    @Transactional(readOnly = true)
     public List<UserDTO> getAllDoctors() {
-        return userRepository.findByRole(Role.DOCTOR).stream()
-                .map(this::mapToUserDTO)
-                .collect(Collectors.toList());
+        return userRepository.findUserDTOsByRole(Role.DOCTOR);
     }
 
+    @Transactional(readOnly = true)
     public List<AppointmentDTO> getPatientAppointments() {
         User currentPatient = getCurrentUser();
-        return appointmentRepository.findByPatient(currentPatient).stream()
-                .map(this::mapToAppointmentDTO)
-                .collect(Collectors.toList());
+        return appointmentRepository.findDTOsByPatientId(currentPatient.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentDTO> getPatientAppointments(String cursor, int limit) {
+        User currentPatient = getCurrentUser();
+        CursorPage.Key key = CursorPage.decode(cursor, false);
+        return CursorPage.of(appointmentRepository.findDTOsByPatientIdAfter(currentPatient.getId(), key.at(), key.id(),
+                PageRequest.ofSize(limit + 1)), limit, AppointmentDTO::getDateTime, AppointmentDTO::getId);
     }
 
     public AppointmentDTO createAppointment(AppointmentDTO appointmentDTO) {
@@ -117,11 +132,18 @@ public class PatientService {
         return mapToAppointmentDTO(updatedAppointment);
     }
 
+    @Transactional(readOnly = true)
     public List<MedicalRecordDTO> getPatientMedicalRecords() {
         User currentPatient = getCurrentUser();
-        return medicalRecordRepository.findByPatient(currentPatient).stream()
-                .map(this::mapToMedicalRecordDTO)
-                .collect(Collectors.toList());
+        return medicalRecordRepository.findDTOsByPatientId(currentPatient.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<MedicalRecordDTO> getPatientMedicalRecords(String cursor, int limit) {
+        User currentPatient = getCurrentUser();
+        CursorPage.Key key = CursorPage.decode(cursor, false);
+        return CursorPage.of(medicalRecordRepository.findDTOsByPatientIdAfter(currentPatient.getId(), key.at(), key.id(),
+                PageRequest.ofSize(limit + 1)), limit, MedicalRecordDTO::getCreatedAt, MedicalRecordDTO::getId);
     }
 
     /**
@@ -142,57 +164,102 @@ public class PatientService {
                 .build();
 
         Message savedMessage = messageRepository.save(message);
+        unreadMessageCounterRepository.recordNewMessage(receiver.getId(), currentPatient.getId());
         // Send email notification to the receiver
         emailService.sendSimpleMessage(receiver.getEmail(), "Nouveau message", "Vous avez reçu un nouveau message de " + currentPatient.getFirstName() + " " + currentPatient.getLastName() + ".");
-        return mapToMessageDTO(savedMessage);
+        MessageDTO sent = mapToMessageDTO(savedMessage);
+        messageStreamRegistry.publishAfterCommit(sent);
+        return sent;
     }
 
     /**
      * Récupère la conversation avec un utilisateur spécifique
      */
+    @Transactional(readOnly = true)
     public List<MessageDTO> getConversation(Long userId) {
         User currentPatient = getCurrentUser();
-        User otherUser = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
+
+        return messageRepository.findConversationDTOs(currentPatient.getId(), userId);
+    }
+
+    /**
+     * Récupère les messages de la conversation reçus après le dernier identifiant connu du client
+     */
+    @Transactional(readOnly = true)
+    public List<MessageDTO> getConversationSince(Long userId, Long afterId) {
+        User currentPatient = getCurrentUser();
+        return messageRepository.findConversationDTOsAfterId(currentPatient.getId(), userId, afterId);
+    }
+
+    /**
+     * Ouvre le flux des nouveaux messages de l'utilisateur connecté
+     */
+    public SseEmitter subscribeToMessages() {
+        return messageStreamRegistry.subscribe(getCurrentUser().getId());
+    }
+
+    /**
+     * Récupère une page de la conversation, des messages les plus récents vers les plus anciens.
+     * Les messages de la page sont renvoyés dans l'ordre chronologique.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MessageDTO> getConversation(Long userId, String cursor, int limit) {
+        User currentPatient = getCurrentUser();
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
 
-        return messageRepository.findConversation(currentPatient, otherUser).stream()
-                .map(this::mapToMessageDTO)
-                .collect(Collectors.toList());
+        CursorPage.Key key = CursorPage.decode(cursor, true);
+        CursorPage<MessageDTO> page = CursorPage.of(
+                messageRepository.findConversationDTOsBefore(currentPatient.getId(), userId, key.at(), key.id(),
+                        limit + 1),
+                limit, MessageDTO::getSentAt, MessageDTO::getId);
+        List<MessageDTO> chronological = new ArrayList<>(page.getContent());
+        Collections.reverse(chronological);
+        page.setContent(chronological);
+        return page;
     }
 
     /**
      * Marque comme lus tous les messages d'une conversation
      */
-    public void markMessagesAsRead(Long userId) {
+    public int markMessagesAsRead(Long userId) {
         User currentPatient = getCurrentUser();
-        User otherUser = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("Utilisateur non trouvé");
+        }
 
-        List<Message> unreadMessages = messageRepository.findUnreadMessages(otherUser, currentPatient);
-        
-        unreadMessages.forEach(message -> {
-            message.setRead(true);
-            messageRepository.save(message);
-        });
+        int updated = messageRepository.markAsRead(userId, currentPatient.getId());
+        if (updated > 0) {
+            unreadMessageCounterRepository.decrement(currentPatient.getId(), userId, updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Nombre de messages non lus par expéditeur
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getUnreadCounts() {
+        User currentPatient = getCurrentUser();
+        return unreadMessageCounterRepository.findByIdReceiverIdAndUnreadCountGreaterThan(currentPatient.getId(), 0).stream()
+                .collect(Collectors.toMap(counter -> counter.getId().getSenderId(), UnreadMessageCounter::getUnreadCount));
     }
 
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Le principal est un instantané immuable : référence vers l'entité, chargée au premier accès à un champ
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return userRepository.getReferenceById(principal.id());
+        }
         String email = authentication.getName();
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Utilisateur non connecté"));
     }
 
-    private UserDTO mapToUserDTO(User user) {
-        return UserDTO.builder()
-                .id(user.getId())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .email(user.getEmail())
-                .role(user.getRole())
-                .build();
-    }
-
     private AppointmentDTO mapToAppointmentDTO(Appointment appointment) {
         return AppointmentDTO.builder()
                 .id(appointment.getId())
@@ -219,18 +286,4 @@ public class PatientService {
                 .read(message.isRead())
                 .build();
     }
-
-    private MedicalRecordDTO mapToMedicalRecordDTO(MedicalRecord medicalRecord) {
-        return MedicalRecordDTO.builder()
-                .id(medicalRecord.getId())
-                .patientId(medicalRecord.getPatient().getId())
-                .patientName(medicalRecord.getPatient().getFirstName() + " " + medicalRecord.getPatient().getLastName())
-                .doctorId(medicalRecord.getDoctor().getId())
-                .doctorName(medicalRecord.getDoctor().getFirstName() + " " + medicalRecord.getDoctor().getLastName())
-                .diagnosis(medicalRecord.getDiagnosis())
-                .treatment(medicalRecord.getTreatment())
-                .createdAt(medicalRecord.getCreatedAt())
-                .notes(medicalRecord.getNotes())
-                .build();
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,2 @@
+-- Version des jetons JWT par utilisateur (révocation des jetons sans état)
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+-- Index composites pour la pagination par clé des conversations, rendez-vous et dossiers médicaux
+CREATE INDEX IF NOT EXISTS idx_messages_sender_receiver_sent ON messages (sender_id, receiver_id, sent_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_date ON appointments (doctor_id, date_time, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_date ON appointments (patient_id, date_time, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_date ON appointments (date_time, id);
+
+CREATE INDEX IF NOT EXISTS idx_medical_records_doctor_created ON medical_records (doctor_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_medical_records_patient_created ON medical_records (patient_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_medical_records_created ON medical_records (created_at, id);
@@ -0,0 +1,15 @@
+-- Compteurs de messages non lus par couple (destinataire, expéditeur)
+CREATE TABLE IF NOT EXISTS unread_message_counters (
+    receiver_id BIGINT NOT NULL,
+    sender_id BIGINT NOT NULL,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (receiver_id, sender_id)
+);
+
+-- Initialisation à partir des messages existants
+INSERT INTO unread_message_counters (receiver_id, sender_id, unread_count)
+SELECT receiver_id, sender_id, COUNT(*)
+FROM messages
+WHERE read = FALSE
+GROUP BY receiver_id, sender_id
+ON CONFLICT (receiver_id, sender_id) DO UPDATE SET unread_count = EXCLUDED.unread_count;
@@ -0,0 +1,9 @@
+-- Recherche plein texte des articles : vecteur pondéré (titre > contenu) maintenu par PostgreSQL
+ALTER TABLE medical_articles
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('french', coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('french', coalesce(content, '')), 'B')
+        ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_medical_articles_search ON medical_articles USING GIN (search_vector);
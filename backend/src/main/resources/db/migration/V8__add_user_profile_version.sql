@@ -0,0 +1,2 @@
+-- Version du profil public des utilisateurs (validateur du fil d'articles lors d'un renommage)
+ALTER TABLE users ADD COLUMN IF NOT EXISTS profile_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,121 @@
+package com.example.demo.article;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ArticleLikeBufferTest {
+
+    private static final Long ARTICLE_ID = 1L;
+
+    private final AtomicInteger likesInDatabase = new AtomicInteger();
+    private MedicalArticleRepository repository;
+    private ArticleLikeBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(MedicalArticleRepository.class);
+        when(repository.findLikeCountById(ARTICLE_ID)).thenAnswer(invocation -> Optional.of(likesInDatabase.get()));
+        when(repository.addLikes(eq(ARTICLE_ID), anyInt()))
+                .thenAnswer(invocation -> Optional.of(likesInDatabase.addAndGet(invocation.getArgument(1))));
+        buffer = new ArticleLikeBuffer(repository);
+        ReflectionTestUtils.setField(buffer, "idleEviction", 60_000L);
+    }
+
+    @Test
+    void like_ReturnsExactTotalWhileFlushesRunConcurrently() throws Exception {
+        int threads = 8;
+        int likesPerThread = 2_000;
+        Set<Integer> totals = ConcurrentHashMap.newKeySet();
+        AtomicBoolean liking = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> likers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                likers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < likesPerThread; i++) {
+                        totals.add(buffer.like(ARTICLE_ID));
+                    }
+                    return null;
+                }));
+            }
+            Thread flusher = new Thread(() -> {
+                while (liking.get()) {
+                    buffer.flush();
+                }
+            });
+            flusher.start();
+            start.countDown();
+            for (Future<?> liker : likers) {
+                liker.get(30, TimeUnit.SECONDS);
+            }
+            liking.set(false);
+            flusher.join();
+        } finally {
+            executor.shutdownNow();
+        }
+        buffer.flush();
+
+        // Chaque like voit un total distinct : aucun n'a été compté sans le delta en cours de report
+        int expected = threads * likesPerThread;
+        assertEquals(expected, totals.size());
+        assertEquals(expected, totals.stream().mapToInt(Integer::intValue).max().orElse(0));
+        assertEquals(expected, likesInDatabase.get());
+    }
+
+    @Test
+    void flush_KeepsPendingLikesWhenDatabaseFails() {
+        buffer.like(ARTICLE_ID);
+        buffer.like(ARTICLE_ID);
+        doThrow(new RuntimeException("base indisponible")).when(repository).addLikes(eq(ARTICLE_ID), anyInt());
+
+        buffer.flush();
+
+        assertEquals(3, buffer.like(ARTICLE_ID));
+        assertEquals(0, likesInDatabase.get());
+    }
+
+    @Test
+    void flush_EvictsIdleArticlesOnceTheirLikesArePersisted() {
+        ReflectionTestUtils.setField(buffer, "idleEviction", 0L);
+        buffer.like(ARTICLE_ID);
+
+        buffer.flush(); // report du like en attente
+        buffer.flush(); // plus rien en attente : l'article est retiré
+        likesInDatabase.addAndGet(5); // likes enregistrés par une autre instance
+
+        assertEquals(7, buffer.like(ARTICLE_ID));
+        verify(repository, times(2)).findLikeCountById(ARTICLE_ID);
+    }
+
+    @Test
+    void flush_DropsLikesOfDeletedArticle() {
+        buffer.like(ARTICLE_ID);
+        when(repository.addLikes(eq(ARTICLE_ID), anyInt())).thenReturn(Optional.empty());
+
+        buffer.flush();
+
+        assertEquals(1, buffer.like(ARTICLE_ID));
+        verify(repository, times(2)).findLikeCountById(ARTICLE_ID);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.article;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArticlePdfStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void store_NamesFileAfterSha256() throws Exception {
+        ArticlePdfStorage storage = new ArticlePdfStorage(directory.toString());
+
+        String hash = storage.store(pdf("a.pdf", "abc"));
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hash);
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(storage.resolve(hash).orElseThrow()));
+    }
+
+    @Test
+    void store_DeduplicatesIdenticalContent() throws Exception {
+        ArticlePdfStorage storage = new ArticlePdfStorage(directory.toString());
+
+        String first = storage.store(pdf("a.pdf", "%PDF-1.7 same"));
+        String second = storage.store(pdf("b.pdf", "%PDF-1.7 same"));
+
+        assertEquals(first, second);
+        try (var files = Files.list(directory)) {
+            // Un seul fichier, aucun fichier temporaire restant
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void resolve_RejectsInvalidHash() {
+        ArticlePdfStorage storage = new ArticlePdfStorage(directory.toString());
+
+        assertTrue(storage.resolve("../secret").isEmpty());
+        assertTrue(storage.resolve("0".repeat(64)).isEmpty());
+    }
+
+    private static MockMultipartFile pdf(String name, String content) {
+        return new MockMultipartFile("pdfFile", name, "application/pdf", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.article;
+
+import com.example.demo.article.dto.ArticleDto;
+import com.example.demo.article.dto.FeedState;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MedicalArticleServiceTest {
+
+    private MedicalArticleRepository articleRepository;
+    private UserRepository userRepository;
+    private EmailService emailService;
+    private JdbcTemplate jdbcTemplate;
+    private MedicalArticleService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        articleRepository = mock(MedicalArticleRepository.class);
+        userRepository = mock(UserRepository.class);
+        emailService = mock(EmailService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new MedicalArticleService(articleRepository, userRepository, mock(ArticleShareRepository.class),
+                mock(ArticleImageRepository.class), mock(ArticlePdfStorage.class), emailService, jdbcTemplate,
+                mock(ObjectProvider.class), 1_000_000, 30_000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shareArticle_InsertsSharesInOneBatchAndSkipsRecipientsWithoutEmail() {
+        User sender = doctor(1L, "sender@test.com");
+        List<User> recipients = List.of(
+                doctor(2L, "a@test.com"),
+                doctor(3L, null),
+                doctor(4L, "  "),
+                doctor(5L, "b@test.com"));
+        when(articleRepository.existsById(10L)).thenReturn(true);
+        when(userRepository.findAllById(any())).thenReturn(recipients);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(sender));
+
+        service.shareArticle(10L, 1L, List.of(2L, 3L, 4L, 5L, 2L));
+
+        ArgumentCaptor<Collection<User>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO article_shares"), batch.capture(), eq(4),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(recipients, List.copyOf(batch.getValue()));
+
+        ArgumentCaptor<Collection<String>> emails = ArgumentCaptor.forClass(Collection.class);
+        verify(emailService).sendToAll(emails.capture(), eq("Article partagé"), anyString());
+        assertEquals(List.of("a@test.com", "b@test.com"), List.copyOf(emails.getValue()));
+    }
+
+    @Test
+    void shareArticle_WithoutRecipientsWritesNothing() {
+        when(articleRepository.existsById(10L)).thenReturn(true);
+
+        service.shareArticle(10L, 1L, List.of());
+
+        verifyNoInteractions(jdbcTemplate, emailService);
+    }
+
+    @Test
+    void findFeed_ServesCachedPageWithCurrentLikeCounts() {
+        FeedState state = mock(FeedState.class, CALLS_REAL_METHODS);
+        when(articleRepository.findFeed(any())).thenReturn(List.of(article(1L, 3)));
+        when(articleRepository.findLikeCountsByIds(List.of(1L)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 3}), List.<Object[]>of(new Object[]{1L, 4}));
+
+        List<ArticleDto> first = service.findFeed(state, PageRequest.of(0, 20));
+        List<ArticleDto> afterLike = service.findFeed(state, PageRequest.of(0, 20));
+
+        // Un like ne vide pas le cache : la page n'est lue qu'une fois, seuls les compteurs sont relus
+        verify(articleRepository, times(1)).findFeed(any());
+        assertEquals(3, first.get(0).getLikeCount());
+        assertEquals(4, afterLike.get(0).getLikeCount());
+    }
+
+    @Test
+    void findFeed_ServesUnpagedFeedFromCacheWithoutInList() {
+        FeedState state = mock(FeedState.class, CALLS_REAL_METHODS);
+        when(articleRepository.findFeed(any())).thenReturn(List.of(article(1L, 0)));
+        when(articleRepository.findAllLikeCounts()).thenReturn(List.<Object[]>of(new Object[]{1L, 2}));
+
+        service.findFeed(state, Pageable.unpaged());
+        List<ArticleDto> cached = service.findFeed(state, Pageable.unpaged());
+
+        // Fil complet demandé par le frontend : lu une fois, compteurs relus sans liste IN
+        verify(articleRepository, times(1)).findFeed(any());
+        verify(articleRepository, never()).findLikeCountsByIds(any());
+        assertEquals(2, cached.get(0).getLikeCount());
+    }
+
+    private static ArticleDto article(Long id, int likeCount) {
+        return new ArticleDto(id, "Titre", "Contenu", null, 1L, "Nom Prénom", LocalDateTime.now(), likeCount);
+    }
+
+    private static User doctor(Long id, String email) {
+        return User.builder().id(id).email(email).firstName("Prénom").lastName("Nom").build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Compte les requêtes SQL préparées par Hibernate, pour vérifier qu'une liste est chargée
+ * en un nombre constant de requêtes quel que soit le nombre de lignes.
+ */
+public class SqlStatementCounter {
+
+    private final Statistics statistics;
+
+    public SqlStatementCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    public long count() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    public long entitiesLoaded() {
+        return statistics.getEntityLoadCount();
+    }
+}
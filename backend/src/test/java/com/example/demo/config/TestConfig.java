@@ -1,9 +1,12 @@
 package com.example.demo.config;
 
+import com.example.demo.orthanc.cache.OrthancCache;
 import com.example.demo.orthanc.config.OrthancProperties;
 import com.example.demo.orthanc.repository.DicomAuditLogRepository;
 import com.example.demo.orthanc.security.DicomAuditService;
+import com.example.demo.orthanc.security.DicomAuditWriter;
 import com.example.demo.orthanc.security.DicomEncryptionService;
+import com.example.demo.orthanc.service.OrthancHydrationExecutor;
 import com.example.demo.orthanc.service.OrthancService;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -48,8 +51,8 @@ public class TestConfig {
     }
 
     @Bean
-    public DicomAuditService dicomAuditService() {
-        return new DicomAuditService(auditLogRepository);
+    public DicomAuditService dicomAuditService(DicomAuditWriter auditWriter) {
+        return new DicomAuditService(auditWriter);
     }
 
     @Bean
@@ -57,7 +60,10 @@ public class TestConfig {
             OrthancProperties orthancProperties,
             RestTemplate restTemplate,
             DicomEncryptionService encryptionService,
-            DicomAuditService auditService) {
-        return new OrthancService(orthancProperties, restTemplate, encryptionService, auditService);
+            DicomAuditService auditService,
+            OrthancCache orthancCache,
+            OrthancHydrationExecutor hydrationExecutor) {
+        return new OrthancService(orthancProperties, restTemplate, encryptionService, auditService,
+                orthancCache, hydrationExecutor);
     }
 }
\ No newline at end of file
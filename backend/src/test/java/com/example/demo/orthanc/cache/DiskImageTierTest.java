@@ -0,0 +1,104 @@
+package com.example.demo.orthanc.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DiskImageTierTest {
+
+    private static final long TTL = 60_000;
+
+    @TempDir
+    Path directory;
+
+    // Horloge de test, dans la plage des dates de fichiers
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    void put_SurvivesRestart() throws Exception {
+        DiskImageTier tier = new DiskImageTier(directory, 1024, TTL, clock::get);
+        tier.put("preview_abc", image(new byte[]{1, 2, 3}));
+
+        DiskImageTier reloaded = new DiskImageTier(directory, 1024, TTL, clock::get);
+
+        assertEquals(1, reloaded.size());
+        assertArrayEquals(new byte[]{1, 2, 3}, reloaded.get("preview_abc").data());
+    }
+
+    @Test
+    void constructor_RestrictsDirectoryToOwner() throws Exception {
+        assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path created = directory.resolve("images");
+        Path existing = Files.createDirectory(directory.resolve("shared"),
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-xr-x")));
+
+        new DiskImageTier(created, 1024, TTL, clock::get);
+        new DiskImageTier(existing, 1024, TTL, clock::get);
+
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(created)));
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(existing)));
+    }
+
+    @Test
+    void put_EvictsLeastRecentlyUsedBeyondCapacity() throws Exception {
+        DiskImageTier tier = new DiskImageTier(directory, 10, TTL, clock::get);
+        tier.put("a", image(new byte[4]));
+        tier.put("b", image(new byte[4]));
+        tier.get("a");
+        tier.put("c", image(new byte[4]));
+
+        assertNotNull(tier.get("a"));
+        assertNull(tier.get("b"));
+        assertNotNull(tier.get("c"));
+        assertEquals(8, tier.bytes());
+    }
+
+    @Test
+    void constructor_RemovesInterruptedWrites() throws Exception {
+        Files.write(directory.resolve("partial.img123.tmp"), new byte[]{9});
+
+        DiskImageTier tier = new DiskImageTier(directory, 1024, TTL, clock::get);
+
+        assertEquals(0, tier.size());
+        assertFalse(Files.exists(directory.resolve("partial.img123.tmp")));
+    }
+
+    @Test
+    void get_ExpiresEntriesOlderThanTtl() throws Exception {
+        DiskImageTier tier = new DiskImageTier(directory, 1024, TTL, clock::get);
+        tier.put("image_abc", image(new byte[]{1}));
+
+        clock.addAndGet(TTL);
+
+        assertNull(tier.get("image_abc"));
+        assertEquals(0, tier.size());
+        assertFalse(Files.exists(directory.resolve("image_abc.img")));
+    }
+
+    @Test
+    void constructor_DropsFilesExpiredWhileStopped() throws Exception {
+        DiskImageTier tier = new DiskImageTier(directory, 1024, TTL, clock::get);
+        tier.put("old", image(new byte[]{1}));
+        clock.addAndGet(TTL / 2);
+        tier.put("recent", image(new byte[]{2}));
+
+        // Redémarrage après l'expiration de la première image seulement
+        clock.addAndGet(TTL / 2);
+        DiskImageTier reloaded = new DiskImageTier(directory, 1024, TTL, clock::get);
+
+        assertEquals(1, reloaded.size());
+        assertFalse(Files.exists(directory.resolve("old.img")));
+        assertArrayEquals(new byte[]{2}, reloaded.get("recent").data());
+    }
+
+    private CachedImage image(byte[] data) {
+        return new CachedImage(data, clock.get());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.orthanc.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapImageTierTest {
+
+    private static final long TTL = 60_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+    private final Map<String, CachedImage> demoted = new HashMap<>();
+
+    @Test
+    void get_ExpiresEntriesOlderThanTtl() {
+        OffHeapImageTier tier = new OffHeapImageTier(1024, TTL, clock::get, demoted::put);
+        tier.put("image_abc", new CachedImage(new byte[]{1, 2}, clock.get()));
+
+        clock.addAndGet(TTL - 1);
+        assertArrayEquals(new byte[]{1, 2}, tier.get("image_abc").data());
+
+        clock.addAndGet(1);
+        assertNull(tier.get("image_abc"));
+        assertEquals(0, tier.bytes());
+    }
+
+    @Test
+    void put_DemotesWithOriginalWriteTime() {
+        OffHeapImageTier tier = new OffHeapImageTier(4, TTL, clock::get, demoted::put);
+        long writtenAt = clock.get();
+        tier.put("a", new CachedImage(new byte[4], writtenAt));
+
+        clock.addAndGet(1000);
+        tier.put("b", new CachedImage(new byte[4], clock.get()));
+
+        // La durée de vie ne repart pas à zéro au niveau inférieur
+        assertEquals(writtenAt, demoted.get("a").writtenAt());
+        assertNull(tier.get("a"));
+    }
+
+    @Test
+    void invalidate_RemovesEntry() {
+        OffHeapImageTier tier = new OffHeapImageTier(1024, TTL, clock::get, demoted::put);
+        tier.put("a", new CachedImage(new byte[]{1}, clock.get()));
+
+        tier.invalidate("a");
+
+        assertNull(tier.get("a"));
+        assertTrue(demoted.isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.orthanc.cache;
+
+import com.example.demo.orthanc.config.OrthancProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrthancCacheTest {
+
+    private OrthancCache cache;
+
+    @BeforeEach
+    void setUp() {
+        OrthancProperties properties = new OrthancProperties();
+        properties.getCache().setDiskEnabled(false);
+        cache = new OrthancCache(properties);
+
+        cache.putStudy("study", "study-dto");
+        cache.putSeries("series", "series-dto");
+        cache.putSeries("other-series", "other-series-dto");
+        cache.putInstance("instance", "instance-dto");
+        cache.putImage("preview_instance", new byte[]{1});
+        cache.putImage("image_instance", new byte[]{2});
+        cache.linkChildren("study", List.of("series", "other-series"));
+        cache.linkChildren("series", List.of("instance"));
+    }
+
+    @Test
+    void invalidateStudy_CascadesToSeriesInstancesAndImages() {
+        cache.invalidateStudy("study");
+
+        assertNull(cache.getStudy("study"));
+        assertNull(cache.getSeries("series"));
+        assertNull(cache.getSeries("other-series"));
+        assertNull(cache.getInstance("instance"));
+        assertNull(cache.getImage("preview_instance"));
+        assertNull(cache.getImage("image_instance"));
+    }
+
+    @Test
+    void invalidateInstance_EvictsAggregatingParentsOnly() {
+        cache.invalidateInstance("instance");
+
+        assertNull(cache.getInstance("instance"));
+        assertNull(cache.getImage("preview_instance"));
+        assertNull(cache.getSeries("series"));
+        assertNull(cache.getStudy("study"));
+        assertNotNull(cache.getSeries("other-series"));
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.demo.orthanc.controller;
 
+import com.example.demo.orthanc.dto.DicomStudyPageDTO;
+import com.example.demo.orthanc.dto.DicomStudySummaryDTO;
 import com.example.demo.orthanc.dto.OrthancResponse;
 import com.example.demo.orthanc.service.OrthancService;
 import org.junit.jupiter.api.Test;
@@ -16,7 +18,11 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -53,4 +59,26 @@ public class OrthancControllerTest {
                 .contentType(MediaType.MULTIPART_FORM_DATA))
                 .andExpect(MockMvcResultMatchers.status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllStudies_ReturnsArrayAndNextPageHeader() throws Exception {
+        mockMvc = MockMvcBuilders.standaloneSetup(orthancController).build();
+
+        DicomStudySummaryDTO study = new DicomStudySummaryDTO();
+        study.setId("study-1");
+        DicomStudyPageDTO page = new DicomStudyPageDTO();
+        page.setContent(List.of(study));
+        page.setPage(0);
+        page.setSize(100);
+        page.setHasNext(true);
+        // La taille demandée est bornée à 100
+        when(orthancService.findStudies(isNull(), isNull(), isNull(), isNull(), eq(0), eq(100))).thenReturn(page);
+
+        // Le corps reste un tableau JSON, comme l'attend le frontend
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/dicom/studies").param("size", "500"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$").isArray())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("study-1"))
+                .andExpect(MockMvcResultMatchers.header().string(DicomStudyPageDTO.HAS_NEXT_HEADER, "true"));
+    }
+}
@@ -1,39 +1,56 @@
 package com.example.demo.orthanc.security;
 
-import com.example.demo.config.TestConfig;
 import com.example.demo.orthanc.model.DicomAuditLog;
-import com.example.demo.orthanc.repository.DicomAuditLogRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.context.annotation.Import;
-import org.springframework.test.context.ActiveProfiles;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
-@SpringBootTest
-@Import(TestConfig.class)
-@ActiveProfiles("test")
 class DicomAuditServiceTest {
 
-    @Autowired
-    private DicomAuditService auditService;
+    private final DicomAuditWriter auditWriter = mock(DicomAuditWriter.class);
+    private final DicomAuditService auditService = new DicomAuditService(auditWriter);
 
-    private final DicomAuditLogRepository repository = mock(DicomAuditLogRepository.class);
+    @AfterEach
+    void resetRequestContext() {
+        RequestContextHolder.resetRequestAttributes();
+    }
 
     @Test
-    void logAccess_Success() {
-        // Arrange
-        String userId = "testUser";
-        String dicomId = "testDicom";
-        String action = "UPLOAD";
-        String result = "SUCCESS";
-
-        // Act
-        assertDoesNotThrow(() -> 
-            auditService.logAccess(userId, dicomId, action, result)
-        );
+    void logAccess_EnqueuesEventWithRequestDetails() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Forwarded-For", "10.0.0.1, 192.168.0.1");
+        request.addHeader("User-Agent", "viewer");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        auditService.logAccess("testUser", "testDicom", "UPLOAD", "SUCCESS");
+
+        ArgumentCaptor<DicomAuditLog> captor = ArgumentCaptor.forClass(DicomAuditLog.class);
+        verify(auditWriter).enqueue(captor.capture());
+        DicomAuditLog auditLog = captor.getValue();
+        assertEquals("testUser", auditLog.getUserId());
+        assertEquals("testDicom", auditLog.getDicomId());
+        assertEquals("UPLOAD", auditLog.getAction());
+        assertEquals("SUCCESS", auditLog.getResult());
+        assertNotNull(auditLog.getTimestamp());
+        // Premier saut de X-Forwarded-For : l'adresse du client d'origine
+        assertEquals("10.0.0.1", auditLog.getIpAddress());
+        assertEquals("viewer", auditLog.getUserAgent());
+    }
+
+    @Test
+    void logAccess_OutsideRequestLeavesClientDetailsEmpty() {
+        auditService.logAccess("scheduler", "testDicom", "DELETE", "SUCCESS");
+
+        ArgumentCaptor<DicomAuditLog> captor = ArgumentCaptor.forClass(DicomAuditLog.class);
+        verify(auditWriter).enqueue(captor.capture());
+        assertNull(captor.getValue().getIpAddress());
+        assertNull(captor.getValue().getUserAgent());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.example.demo.orthanc.security;
+
+import com.example.demo.orthanc.config.OrthancProperties;
+import com.example.demo.orthanc.model.DicomAuditLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DicomAuditWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    // Taille de chaque lot envoyé à la base
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+
+    private DicomAuditWriter writer;
+
+    @AfterEach
+    void stopWriter() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void enqueue_SpillsBeyondQueueCapacity() throws Exception {
+        recordBatches();
+        // Intervalle de flush long : le thread d'écriture ne vide pas la file pendant le test
+        writer = start(properties(2, 100, 60_000));
+
+        writer.enqueue(event("1"));
+        writer.enqueue(event("2"));
+        writer.enqueue(event("3"));
+
+        assertEquals(1, spilledLines().size());
+        assertTrue(spilledLines().get(0).contains("\"dicomId\":\"3\""));
+    }
+
+    @Test
+    void shutdown_WritesQueueInBoundedBatches() {
+        recordBatches();
+        writer = start(properties(100, 2, 60_000));
+
+        for (int i = 0; i < 5; i++) {
+            writer.enqueue(event(String.valueOf(i)));
+        }
+        writer.shutdown();
+        writer = null;
+
+        assertEquals(5, batches.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batches.stream().allMatch(size -> size <= 2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_SpillsAndBacksOffWhileDatabaseIsDown() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("base indisponible"));
+        OrthancProperties properties = properties(100, 1, 10);
+        properties.getAudit().setRetryInitialBackoff(60_000);
+        writer = start(properties);
+
+        writer.enqueue(event("1"));
+        // Plusieurs cycles du thread d'écriture (flush toutes les 10 ms)
+        Thread.sleep(300);
+
+        // Un seul essai : pendant l'attente, le fichier n'est ni rejoué ni réécrit
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, spilledLines().size());
+
+        // Les événements suivants vont directement au fichier sans solliciter la base
+        writer.enqueue(event("2"));
+        Thread.sleep(100);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(2, spilledLines().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recordBatches() {
+        doAnswer(invocation -> {
+            batches.add(((Collection<DicomAuditLog>) invocation.getArgument(1)).size());
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private OrthancProperties properties(int queueCapacity, int batchSize, long flushInterval) {
+        OrthancProperties properties = new OrthancProperties();
+        OrthancProperties.Audit audit = properties.getAudit();
+        audit.setQueueCapacity(queueCapacity);
+        audit.setBatchSize(batchSize);
+        audit.setFlushInterval(flushInterval);
+        audit.setOverflowPolicy(OrthancProperties.Audit.OverflowPolicy.SPILL);
+        audit.setSpillFile(directory.resolve("spill.jsonl").toString());
+        return properties;
+    }
+
+    private DicomAuditWriter start(OrthancProperties properties) {
+        DicomAuditWriter auditWriter = new DicomAuditWriter(jdbcTemplate, objectMapper, properties);
+        auditWriter.start();
+        return auditWriter;
+    }
+
+    private List<String> spilledLines() throws Exception {
+        Path spillFile = directory.resolve("spill.jsonl");
+        return Files.exists(spillFile) ? Files.readAllLines(spillFile, StandardCharsets.UTF_8) : List.of();
+    }
+
+    private static DicomAuditLog event(String dicomId) {
+        return DicomAuditLog.builder()
+                .userId("user")
+                .dicomId(dicomId)
+                .action("VIEW")
+                .result("SUCCESS")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
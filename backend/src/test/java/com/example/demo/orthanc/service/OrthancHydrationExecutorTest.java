@@ -0,0 +1,108 @@
+package com.example.demo.orthanc.service;
+
+import com.example.demo.orthanc.config.OrthancProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrthancHydrationExecutorTest {
+
+    private OrthancHydrationExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        OrthancProperties properties = new OrthancProperties();
+        properties.getHydration().setParallelism(2);
+        executor = new OrthancHydrationExecutor(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void fanOut_ReturnsValuesInOrder() {
+        OrthancHydrationExecutor.FanOutResult<String> result = executor.fanOut(
+                List.of("a", "b", "c"), String::toUpperCase, Instant.now().plusSeconds(5));
+
+        assertTrue(result.complete());
+        assertEquals(List.of("A", "B", "C"), result.values());
+    }
+
+    @Test
+    void fanOut_SkipsFailedAndSlowBranches() {
+        OrthancHydrationExecutor.FanOutResult<String> result = executor.fanOut(
+                List.of("ok", "fail", "slow"),
+                id -> {
+                    if (id.equals("fail")) {
+                        throw new IllegalStateException("boom");
+                    }
+                    if (id.equals("slow")) {
+                        sleep(2000);
+                    }
+                    return id;
+                },
+                Instant.now().plusMillis(300));
+
+        assertFalse(result.complete());
+        assertEquals(List.of("ok"), result.values());
+    }
+
+    @Test
+    void fanOut_MissingValueMakesResultIncomplete() {
+        OrthancHydrationExecutor.FanOutResult<String> result = executor.fanOut(
+                List.of("a", "missing"), id -> id.equals("missing") ? null : id, Instant.now().plusSeconds(5));
+
+        assertFalse(result.complete());
+        assertEquals(List.of("a"), result.values());
+    }
+
+    @Test
+    void fanOut_CancelsBranchesPastDeadline() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        OrthancHydrationExecutor.FanOutResult<String> result = executor.fanOut(List.of("slow"), id -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return id;
+        }, Instant.now().plusMillis(100));
+
+        assertFalse(result.complete());
+        assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void call_LimitsConcurrentOrthancCalls() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        executor.fanOut(List.of("1", "2", "3", "4", "5", "6"), id -> executor.call(() -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            sleep(50);
+            active.decrementAndGet();
+            return id;
+        }), Instant.now().plusSeconds(5));
+
+        assertTrue(maxActive.get() <= 2);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.demo.repository;
+
+import com.example.demo.article.ArticleImage;
+import com.example.demo.article.ArticleImageRepository;
+import com.example.demo.article.MedicalArticle;
+import com.example.demo.article.MedicalArticleRepository;
+import com.example.demo.article.dto.ArticleDto;
+import com.example.demo.article.dto.FeedState;
+import com.example.demo.config.SqlStatementCounter;
+import com.example.demo.dto.AppointmentDTO;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.MedicalImageDTO;
+import com.example.demo.dto.MedicalRecordDTO;
+import com.example.demo.dto.MessageDTO;
+import com.example.demo.model.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RepositoryFetchPlanTest {
+
+    private static final int ROWS = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MedicalImageRepository medicalImageRepository;
+
+    @Autowired
+    private UnreadMessageCounterRepository unreadMessageCounterRepository;
+
+    @Autowired
+    private MedicalArticleRepository articleRepository;
+
+    @Autowired
+    private ArticleImageRepository articleImageRepository;
+
+    private SqlStatementCounter counter;
+    private User doctor;
+    private User patient;
+
+    @BeforeEach
+    void setUp() {
+        counter = new SqlStatementCounter(entityManagerFactory);
+        doctor = entityManager.persist(user("doctor@test.com", Role.DOCTOR));
+        patient = entityManager.persist(user("patient@test.com", Role.PATIENT));
+
+        for (int i = 0; i < ROWS; i++) {
+            entityManager.persist(Appointment.builder()
+                    .doctor(doctor).patient(patient)
+                    .dateTime(LocalDateTime.now().plusDays(i))
+                    .status(AppointmentStatus.SCHEDULED)
+                    .build());
+
+            MedicalRecord record = entityManager.persist(MedicalRecord.builder()
+                    .doctor(doctor).patient(patient)
+                    .createdAt(LocalDateTime.now())
+                    .diagnosis("Diagnostic " + i)
+                    .build());
+            for (int j = 0; j < 2; j++) {
+                entityManager.persist(MedicalImage.builder()
+                        .medicalRecord(record)
+                        .orthancInstanceId("instance-" + i + "-" + j)
+                        .build());
+            }
+
+            entityManager.persist(Message.builder()
+                    .sender(i % 2 == 0 ? doctor : patient)
+                    .receiver(i % 2 == 0 ? patient : doctor)
+                    .content("Message " + i)
+                    .sentAt(LocalDateTime.now().plusMinutes(i))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        counter.reset();
+    }
+
+    @Test
+    void findByDoctor_LoadsAppointmentsWithParticipantsInOneQuery() {
+        List<Appointment> appointments = appointmentRepository.findByDoctor(doctor);
+        appointments.forEach(a -> assertNotNull(a.getPatient().getFirstName() + a.getDoctor().getLastName()));
+
+        assertEquals(ROWS, appointments.size());
+        assertEquals(1, counter.count());
+    }
+
+    @Test
+    void findByDoctor_LoadsRecordsWithImagesInOneQuery() {
+        List<MedicalRecord> records = medicalRecordRepository.findByDoctor(doctor);
+        records.forEach(r -> assertEquals(2, r.getMedicalImages().size()));
+        records.forEach(r -> assertNotNull(r.getPatient().getFirstName()));
+
+        assertEquals(ROWS, records.size());
+        assertEquals(1, counter.count());
+    }
+
+    @Test
+    void findConversation_LoadsSenderAndReceiverInOneQuery() {
+        List<Message> messages = messageRepository.findConversation(doctor, patient);
+        messages.forEach(m -> assertNotNull(m.getSender().getFirstName() + m.getReceiver().getLastName()));
+
+        assertEquals(ROWS, messages.size());
+        assertEquals(1, counter.count());
+    }
+
+    @Test
+    void projections_ReturnDtosWithoutHydratingEntities() {
+        List<AppointmentDTO> appointments = appointmentRepository.findDTOsByDoctorId(doctor.getId());
+        List<MessageDTO> messages = messageRepository.findConversationDTOs(doctor.getId(), patient.getId());
+        List<MedicalRecordDTO> records = medicalRecordRepository.findDTOsByDoctorId(doctor.getId());
+        List<MedicalImageDTO> images = medicalImageRepository.findDTOsByMedicalRecordIds(
+                records.stream().map(MedicalRecordDTO::getId).toList());
+
+        assertEquals(ROWS, appointments.size());
+        assertEquals("Prénom Nom", appointments.get(0).getPatientName());
+        assertEquals(ROWS, messages.size());
+        assertEquals(patient.getId(), messages.get(0).getReceiverId());
+        assertEquals(ROWS, records.size());
+        assertEquals(2 * ROWS, images.size());
+        assertEquals(4, counter.count());
+        assertEquals(0, counter.entitiesLoaded());
+        // Listes complètes : images lues par jointure, sans liste IN
+        assertEquals(2 * ROWS, medicalImageRepository.findDTOsByDoctorId(doctor.getId()).size());
+        assertEquals(2 * ROWS, medicalImageRepository.findAllDTOs().size());
+    }
+
+    @Test
+    void keysetPages_CoverEachRowExactlyOnce() {
+        List<Long> appointmentIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage.Key key = CursorPage.decode(cursor, false);
+            CursorPage<AppointmentDTO> page = CursorPage.of(appointmentRepository.findDTOsByDoctorIdAfter(
+                    doctor.getId(), key.at(), key.id(), PageRequest.ofSize(3)), 2,
+                    AppointmentDTO::getDateTime, AppointmentDTO::getId);
+            page.getContent().forEach(a -> appointmentIds.add(a.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<LocalDateTime> sentAt = new ArrayList<>();
+        cursor = null;
+        do {
+            CursorPage.Key key = CursorPage.decode(cursor, true);
+            CursorPage<MessageDTO> page = CursorPage.of(messageRepository.findConversationDTOsBefore(
+                    doctor.getId(), patient.getId(), key.at(), key.id(), 3), 2,
+                    MessageDTO::getSentAt, MessageDTO::getId);
+            page.getContent().forEach(m -> sentAt.add(m.getSentAt()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(ROWS, appointmentIds.stream().distinct().count());
+        assertEquals(ROWS, sentAt.size());
+        // Les messages sont parcourus du plus récent au plus ancien
+        for (int i = 1; i < sentAt.size(); i++) {
+            assertTrue(sentAt.get(i - 1).isAfter(sentAt.get(i)));
+        }
+    }
+
+    @Test
+    void markAsRead_UpdatesConversationInOneStatement() {
+        // Compteur posé directement : l'incrément à l'envoi est un upsert propre à PostgreSQL
+        entityManager.persistAndFlush(new UnreadMessageCounter(
+                new UnreadMessageCounterId(patient.getId(), doctor.getId()), 2));
+        counter.reset();
+
+        int updated = messageRepository.markAsRead(doctor.getId(), patient.getId());
+        unreadMessageCounterRepository.decrement(patient.getId(), doctor.getId(), updated);
+
+        // Messages pairs : du médecin vers le patient
+        assertEquals(3, updated);
+        assertEquals(2, counter.count());
+        assertEquals(0, unreadMessageCounterRepository.findByIdReceiverIdAndUnreadCountGreaterThan(patient.getId(), 0).size());
+        assertEquals(0, messageRepository.markAsRead(doctor.getId(), patient.getId()));
+    }
+
+    @Test
+    void articleFeed_LoadsAuthorsAndImagesInTwoQueries() {
+        for (int i = 0; i < ROWS; i++) {
+            MedicalArticle article = entityManager.persist(MedicalArticle.builder()
+                    .title("Article " + i)
+                    .authorId(doctor.getId())
+                    .createdAt(LocalDateTime.now().plusMinutes(i))
+                    .build());
+            entityManager.persist(ArticleImage.builder().article(article).orthancInstanceId("image-" + i).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        counter.reset();
+
+        List<ArticleDto> feed = articleRepository.findFeed(PageRequest.of(0, 3));
+        List<Object[]> images = articleImageRepository.findImageIdsByArticleIds(feed.stream().map(ArticleDto::getId).toList());
+
+        assertEquals(3, feed.size());
+        assertEquals("Article " + (ROWS - 1), feed.get(0).getTitle());
+        assertEquals("Nom Prénom", feed.get(0).getAuthorName());
+        assertEquals(3, images.size());
+        assertEquals(2, counter.count());
+        // Fil complet : toutes les images en une requête, sans liste IN
+        assertEquals(ROWS, articleImageRepository.findAllImageIds().size());
+    }
+
+    @Test
+    void feedState_ChangesWithArticlesLikesAndAuthorProfile() {
+        MedicalArticle article = entityManager.persist(MedicalArticle.builder()
+                .title("Article")
+                .authorId(doctor.getId())
+                .createdAt(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+        FeedState initial = articleRepository.findFeedState();
+
+        article.setLikeCount(article.getLikeCount() + 1);
+        entityManager.flush();
+        FeedState liked = articleRepository.findFeedState();
+
+        // Renommage de l'auteur : sa version de profil est incrémentée
+        User author = entityManager.find(User.class, doctor.getId());
+        author.setLastName("Renommé");
+        author.setProfileVersion(author.getProfileVersion() + 1);
+        entityManager.flush();
+        FeedState renamed = articleRepository.findFeedState();
+
+        assertEquals(1, initial.getArticleCount());
+        assertEquals(Long.valueOf(1), liked.getLikeTotal());
+        assertNotEquals(initial.eTag(), liked.eTag());
+        assertNotEquals(liked.eTag(), renamed.eTag());
+    }
+
+    private static User user(String email, Role role) {
+        return User.builder()
+                .firstName("Prénom")
+                .lastName("Nom")
+                .email(email)
+                .password("secret")
+                .role(role)
+                .build();
+    }
+}
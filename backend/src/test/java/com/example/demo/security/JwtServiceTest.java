@@ -0,0 +1,89 @@
+package com.example.demo.security;
+
+import com.example.demo.model.AccountStatus;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "VGVzdFNlY3JldEtleVRoYXRJc0xvbmdFbm91Z2hGb3JKV1RUb2tlbkdlbmVyYXRpb24xMjM0NTY3ODk=";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "SECRET_KEY", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 100L);
+        ReflectionTestUtils.setField(jwtService, "streamTicketTtl", 60_000L);
+        jwtService.init();
+    }
+
+    @Test
+    void verify_AcceptsSignedTokenWithExpiration() {
+        String token = Jwts.builder()
+                .setSubject("doctor@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals("doctor@example.com", jwtService.verify(token).getSubject());
+    }
+
+    @Test
+    void verify_RejectsTokenWithoutExpiration() {
+        String token = Jwts.builder()
+                .setSubject("doctor@example.com")
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void toPrincipal_CarriesAccountStatusOfStatelessToken() {
+        ReflectionTestUtils.setField(jwtService, "stateless", true);
+        User suspended = User.builder()
+                .id(7L)
+                .email("nurse@example.com")
+                .role(Role.NURSE)
+                .status(AccountStatus.SUSPENDED)
+                .tokenVersion(2L)
+                .build();
+
+        Claims claims = jwtService.verify(jwtService.generateToken(suspended));
+        AuthenticatedUser principal = jwtService.toPrincipal(claims);
+
+        assertTrue(jwtService.isStatelessToken(claims));
+        assertEquals(Long.valueOf(7L), principal.id());
+        assertEquals(Role.NURSE, principal.role());
+        assertEquals(2L, jwtService.extractTokenVersion(claims));
+        assertFalse(principal.isEnabled());
+    }
+
+    @Test
+    void streamTicket_IsDistinguishedFromAccessToken() {
+        User doctor = User.builder().id(3L).email("doctor@example.com").role(Role.DOCTOR).build();
+
+        Claims ticket = jwtService.verify(jwtService.generateStreamTicket("doctor@example.com"));
+        Claims accessToken = jwtService.verify(jwtService.generateToken(doctor));
+
+        assertTrue(jwtService.isStreamTicket(ticket));
+        assertEquals("doctor@example.com", ticket.getSubject());
+        assertFalse(jwtService.isStreamTicket(accessToken));
+    }
+}
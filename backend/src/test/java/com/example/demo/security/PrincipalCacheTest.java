@@ -0,0 +1,69 @@
+package com.example.demo.security;
+
+import com.example.demo.model.AccountStatus;
+import com.example.demo.model.Role;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTest {
+
+    private static final String EMAIL = "doctor@test.com";
+
+    private UserRepository userRepository;
+    private PrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        cache = new PrincipalCache(userRepository, 30_000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evict_InsideTransactionTakesEffectAfterCommit() {
+        when(userRepository.findByEmail(EMAIL))
+                .thenReturn(Optional.of(user(AccountStatus.ACTIVE)), Optional.of(user(AccountStatus.SUSPENDED)));
+        assertTrue(cache.get(EMAIL).isEnabled());
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evict(EMAIL);
+        // Avant validation : l'entrée n'est pas retirée, une relecture verrait encore l'ancienne ligne
+        assertTrue(cache.get(EMAIL).isEnabled());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertFalse(cache.get(EMAIL).isEnabled());
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void evict_OutsideTransactionIsImmediate() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user(AccountStatus.ACTIVE)));
+        cache.get(EMAIL);
+
+        cache.evict(EMAIL);
+        cache.get(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    private static User user(AccountStatus status) {
+        return User.builder().id(1L).email(EMAIL).role(Role.DOCTOR).status(status).build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.security;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenVersionRegistryTest {
+
+    private UserRepository userRepository;
+    private TokenVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        registry = new TokenVersionRegistry(userRepository);
+        ReflectionTestUtils.setField(registry, "stateless", true);
+    }
+
+    @Test
+    void bump_RevokesTokensOfPreviousVersion() {
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0L));
+        assertTrue(registry.isCurrent(1L, 0L));
+
+        registry.bump(User.builder().id(1L).tokenVersion(0L).build());
+
+        assertFalse(registry.isCurrent(1L, 0L));
+        assertTrue(registry.isCurrent(1L, 1L));
+    }
+
+    @Test
+    void refresh_WithStaleSnapshotDoesNotUndoBump() {
+        // Lecture faite avant la validation de l'incrément
+        when(userRepository.findAllTokenVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 0L}));
+        registry.bump(User.builder().id(1L).tokenVersion(0L).build());
+
+        registry.refresh();
+
+        assertFalse(registry.isCurrent(1L, 0L));
+        assertTrue(registry.isCurrent(1L, 1L));
+    }
+
+    @Test
+    void refresh_WithStaleSnapshotDoesNotUndoRevocation() {
+        when(userRepository.findAllTokenVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 3L}));
+        registry.revoke(1L);
+
+        registry.refresh();
+
+        assertFalse(registry.isCurrent(1L, 3L));
+    }
+
+    @Test
+    void refresh_PicksUpRevocationFromAnotherNode() {
+        when(userRepository.findAllTokenVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 0L}));
+        registry.refresh();
+        assertTrue(registry.isCurrent(1L, 0L));
+
+        when(userRepository.findAllTokenVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
+        registry.refresh();
+
+        assertFalse(registry.isCurrent(1L, 0L));
+        assertTrue(registry.isCurrent(1L, 2L));
+    }
+
+    @Test
+    void refresh_ForgetsDeletedUsers() {
+        when(userRepository.findAllTokenVersions()).thenReturn(List.<Object[]>of(new Object[]{1L, 0L}));
+        registry.refresh();
+
+        when(userRepository.findAllTokenVersions()).thenReturn(List.of());
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.empty());
+        registry.refresh();
+
+        assertFalse(registry.isCurrent(1L, 0L));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.model.EmailStatus;
+import com.example.demo.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+
+    private static final String FROM = "no-reply@test.com";
+    private static final long INITIAL_BACKOFF = 30_000;
+    private static final long MAX_BACKOFF = 3_600_000;
+
+    private EmailOutboxRepository repository;
+    private JavaMailSender mailSender;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(EmailOutboxRepository.class);
+        mailSender = mock(JavaMailSender.class);
+        dispatcher = new EmailOutboxDispatcher(repository, mailSender,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(dispatcher, "from", FROM);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoff", INITIAL_BACKOFF);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoff", MAX_BACKOFF);
+        ReflectionTestUtils.setField(dispatcher, "lease", 300_000L);
+        ReflectionTestUtils.setField(dispatcher, "sentRetention", 604_800_000L);
+        ReflectionTestUtils.setField(dispatcher, "deadRetention", 2_592_000_000L);
+    }
+
+    @Test
+    void dispatch_PartialFailureRetriesOnlyFailedMessages() {
+        EmailOutbox delivered = email(1L, "a@test.com", 0);
+        EmailOutbox rejected = email(2L, "b@test.com", 0);
+        when(repository.lockDueBatch(any(), anyInt())).thenReturn(List.of(delivered, rejected));
+        doThrow(new MailSendException(Map.of(message(rejected), new IllegalStateException("550 mailbox unavailable"))))
+                .when(mailSender).send(any(SimpleMailMessage[].class));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        assertEquals(EmailStatus.SENT, delivered.getStatus());
+        assertNotNull(delivered.getSentAt());
+        assertEquals(0, delivered.getAttempts());
+
+        assertEquals(EmailStatus.PENDING, rejected.getStatus());
+        assertEquals(1, rejected.getAttempts());
+        assertEquals("550 mailbox unavailable", rejected.getLastError());
+        assertFalse(rejected.getNextAttemptAt().isBefore(before.plus(Duration.ofMillis(INITIAL_BACKOFF))));
+        verify(repository).saveAll(List.of(delivered, rejected));
+    }
+
+    @Test
+    void dispatch_MalformedRecipientIsRejectedWithoutFailingTheBatch() {
+        EmailOutbox valid = email(1L, "a@test.com", 0);
+        EmailOutbox malformed = email(2L, "patient@@test.com", 0);
+        when(repository.lockDueBatch(any(), anyInt())).thenReturn(List.of(valid, malformed));
+
+        dispatcher.dispatch();
+
+        verify(mailSender).send(new SimpleMailMessage[]{message(valid)});
+        assertEquals(EmailStatus.SENT, valid.getStatus());
+        assertEquals(EmailStatus.DEAD, malformed.getStatus());
+        assertEquals(1, malformed.getAttempts());
+        assertTrue(malformed.getLastError().startsWith("Adresse invalide"));
+        verify(repository).saveAll(List.of(valid, malformed));
+    }
+
+    @Test
+    void dispatch_BackoffDoublesPerAttemptUpToMaximum() {
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 20);
+        EmailOutbox secondFailure = email(1L, "a@test.com", 1);
+        EmailOutbox longFailing = email(2L, "b@test.com", 15);
+        when(repository.lockDueBatch(any(), anyInt())).thenReturn(List.of(secondFailure, longFailing));
+        doThrow(new MailSendException("Connexion SMTP refusée")).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+        LocalDateTime after = LocalDateTime.now();
+
+        assertDelay(secondFailure, 2 * INITIAL_BACKOFF, before, after);
+        assertDelay(longFailing, MAX_BACKOFF, before, after);
+    }
+
+    @Test
+    void dispatch_MarksEmailDeadAfterMaxAttempts() {
+        EmailOutbox lastChance = email(1L, "a@test.com", 2);
+        when(repository.lockDueBatch(any(), anyInt())).thenReturn(List.of(lastChance));
+        doThrow(new MailSendException("Connexion SMTP refusée")).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        dispatcher.dispatch();
+
+        assertEquals(EmailStatus.DEAD, lastChance.getStatus());
+        assertEquals(3, lastChance.getAttempts());
+        assertEquals("Connexion SMTP refusée", lastChance.getLastError());
+    }
+
+    @Test
+    void purge_DeletesInBatchesUntilNothingIsLeft() {
+        when(repository.deleteExpired(any(), any(), anyInt())).thenReturn(1000, 1000, 12);
+
+        dispatcher.purge();
+
+        verify(repository, times(3)).deleteExpired(any(), any(), eq(1000));
+    }
+
+    private static void assertDelay(EmailOutbox email, long delayMillis, LocalDateTime before, LocalDateTime after) {
+        assertEquals(EmailStatus.PENDING, email.getStatus());
+        assertFalse(email.getNextAttemptAt().isBefore(before.plus(Duration.ofMillis(delayMillis))));
+        assertFalse(email.getNextAttemptAt().isAfter(after.plus(Duration.ofMillis(delayMillis))));
+    }
+
+    private static EmailOutbox email(Long id, String recipient, int attempts) {
+        EmailOutbox email = EmailOutbox.pending(recipient, "Sujet", "Corps");
+        email.setId(id);
+        email.setAttempts(attempts);
+        return email;
+    }
+
+    // Message équivalent à celui construit par le répartiteur (SimpleMailMessage compare par valeur)
+    private static SimpleMailMessage message(EmailOutbox email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(FROM);
+        message.setTo(email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        return message;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.service;
+
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.model.EmailStatus;
+import com.example.demo.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        emailService = new EmailService(mock(EmailOutboxRepository.class), jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendToAll_QueuesAllRecipientsInOneBatch() throws Exception {
+        emailService.sendToAll(List.of("a@test.com", "b@test.com", "c@test.com"), "Sujet", "Corps");
+
+        ArgumentCaptor<Collection<EmailOutbox>> batch = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<EmailOutbox>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO email_outbox"), batch.capture(), eq(3), setter.capture());
+
+        List<EmailOutbox> emails = List.copyOf(batch.getValue());
+        assertEquals(List.of("a@test.com", "b@test.com", "c@test.com"),
+                emails.stream().map(EmailOutbox::getRecipient).toList());
+        assertTrue(emails.stream().allMatch(email -> email.getStatus() == EmailStatus.PENDING));
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, emails.get(1));
+        verify(ps).setString(1, "b@test.com");
+        verify(ps).setString(2, "Sujet");
+        verify(ps).setString(4, "PENDING");
+    }
+
+    @Test
+    void sendToAll_WithoutRecipientsWritesNothing() {
+        emailService.sendToAll(List.of(), "Sujet", "Corps");
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
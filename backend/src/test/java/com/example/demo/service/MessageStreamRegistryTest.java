@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.MessageDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MessageStreamRegistryTest {
+
+    private static final Long SENDER = 1L;
+    private static final Long RECEIVER = 2L;
+
+    private MessageStreamRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        // Flux simulés : les envois sont observés sans connexion HTTP
+        registry = new MessageStreamRegistry() {
+            @Override
+            SseEmitter newEmitter() {
+                return mock(SseEmitter.class);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void publishAfterCommit_SendsOnlyOnceTransactionCommits() throws Exception {
+        SseEmitter receiver = registry.subscribe(RECEIVER);
+        clearInvocations(receiver);
+
+        TransactionSynchronizationManager.initSynchronization();
+        registry.publishAfterCommit(message());
+        verify(receiver, never()).send(any(SseEmitter.SseEventBuilder.class));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(receiver).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void publishAfterCommit_SendsNothingOnRollback() throws Exception {
+        SseEmitter receiver = registry.subscribe(RECEIVER);
+        clearInvocations(receiver);
+
+        TransactionSynchronizationManager.initSynchronization();
+        registry.publishAfterCommit(message());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(receiver, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void publish_RemovesDisconnectedEmittersAndKeepsOthers() throws Exception {
+        SseEmitter disconnected = registry.subscribe(RECEIVER);
+        SseEmitter connected = registry.subscribe(RECEIVER);
+        SseEmitter senderTab = registry.subscribe(SENDER);
+        doThrow(new IOException("Broken pipe")).when(disconnected).send(any(SseEmitter.SseEventBuilder.class));
+        clearInvocations(connected, senderTab);
+
+        registry.publish(message());
+
+        assertEquals(1, registry.subscriptions(RECEIVER));
+        verify(connected).send(any(SseEmitter.SseEventBuilder.class));
+        // Les autres onglets de l'expéditeur reçoivent aussi le message
+        verify(senderTab).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void heartbeat_ForgetsUserWhenLastEmitterIsGone() throws Exception {
+        SseEmitter completed = registry.subscribe(RECEIVER);
+        doThrow(new IllegalStateException("ResponseBodyEmitter has already completed"))
+                .when(completed).send(any(SseEmitter.SseEventBuilder.class));
+
+        registry.heartbeat();
+
+        assertEquals(0, registry.subscriptions(RECEIVER));
+    }
+
+    private static MessageDTO message() {
+        return MessageDTO.builder()
+                .id(10L)
+                .senderId(SENDER)
+                .receiverId(RECEIVER)
+                .content("Bonjour")
+                .sentAt(LocalDateTime.now())
+                .build();
+    }
+}
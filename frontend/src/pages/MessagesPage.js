@@ -4,6 +4,7 @@ import { Container, Row, Col, ListGroup, Form, Button, Card, Spinner, Modal, Bad
 import { useAuth } from '../context/AuthContext';
 import { FaPaperPlane, FaPaperclip, FaUserMd, FaUserCog, FaUser } from 'react-icons/fa';
 import axios from '../api/auth';
+import messageStreamService from '../services/messageStreamService';
 
 const MessagesPage = () => {
     const { user } = useAuth();
@@ -18,6 +19,7 @@ const MessagesPage = () => {
     const [newConversation, setNewConversation] = useState({ recipientId: '', message: '' });
     const messagesEndRef = useRef(null);
     const fileInputRef = useRef(null);
+    const selectedContactRef = useRef(null);
 
     // Titre de la page en fonction du rôle
     const getPageTitle = () => {
@@ -322,6 +324,20 @@ const MessagesPage = () => {
         scrollToBottom();
     }, [messages]);
 
+    useEffect(() => {
+        selectedContactRef.current = selectedContact;
+    }, [selectedContact]);
+
+    // Nouveaux messages poussés par le serveur : un seul flux par page, ajoutés à la conversation ouverte
+    useEffect(() => {
+        if (!user) return undefined;
+        return messageStreamService.subscribe(user.role, (message) => {
+            const contact = selectedContactRef.current;
+            if (!contact || (message.senderId !== contact.id && message.receiverId !== contact.id)) return;
+            setMessages(previous => previous.some(m => m.id === message.id) ? previous : [...previous, message]);
+        });
+    }, [user]);
+
     const handleContactSelect = (contact) => {
         setSelectedContact(contact);
         
@@ -3,29 +3,40 @@ import axios from 'axios';
 import authHeader from './authHeader';
 
 const API_URL = '/api/v1/dicom';
+// Taille maximale d'une page d'études acceptée par le serveur
+const STUDIES_PAGE_SIZE = 100;
 
 const dicomService = {
-  // Récupérer toutes les études DICOM
+  // Récupérer toutes les études DICOM : le serveur renvoie des pages bornées,
+  // lues jusqu'à ce que l'en-tête X-Has-Next indique la dernière
   getAllStudies: async (patientId = null) => {
-    const params = patientId ? { patientId } : {};
     try {
-      console.log("Récupération des études DICOM avec params:", params);
-      
-      const response = await axios.get(`${API_URL}/studies`, { 
-        params,
-        headers: authHeader() 
-      });
-      
-      console.log("Réponse brute du serveur pour les études:", response);
-      
-      // Vérifier si les données sont valides
-      if (!response.data || !Array.isArray(response.data)) {
-        console.error("Format de données inattendu:", response.data);
-        return [];
+      const studies = [];
+      let page = 0;
+      let hasNext = true;
+      while (hasNext) {
+        const params = { page, size: STUDIES_PAGE_SIZE, ...(patientId ? { patientId } : {}) };
+        console.log("Récupération des études DICOM avec params:", params);
+
+        const response = await axios.get(`${API_URL}/studies`, {
+          params,
+          headers: authHeader()
+        });
+
+        // Vérifier si les données sont valides
+        if (!response.data || !Array.isArray(response.data)) {
+          console.error("Format de données inattendu:", response.data);
+          break;
+        }
+        studies.push(...response.data);
+        hasNext = response.headers['x-has-next'] === 'true';
+        page += 1;
       }
-      
+
+      console.log("Nombre d'études reçues du serveur:", studies.length);
+
       // Transformer les données pour s'assurer qu'elles sont correctement formatées
-      const formattedData = response.data.map(study => {
+      const formattedData = studies.map(study => {
         // Log détaillé pour chaque étude
         console.log("Étude brute:", study);
         
@@ -0,0 +1,62 @@
+// src/services/messageStreamService.js
+import axios from '../api/auth';
+
+const BASE_URL = 'http://localhost:8080';
+const ROLE_PATHS = { DOCTOR: 'doctor', NURSE: 'nurse', PATIENT: 'patient' };
+const RETRY_DELAY = 5000;
+
+// Abonnement au flux des nouveaux messages (Server-Sent Events).
+// EventSource ne peut pas envoyer l'en-tête Authorization : un ticket de courte durée est demandé
+// avec le jeton, puis passé dans l'URL du flux. À chaque coupure, un nouveau ticket est demandé.
+// Retourne une fonction qui ferme l'abonnement.
+const subscribe = (role, onMessage) => {
+  const rolePath = ROLE_PATHS[role];
+  if (!rolePath || typeof EventSource === 'undefined') {
+    return () => {};
+  }
+
+  let source = null;
+  let retryTimer = null;
+  let closed = false;
+
+  const connect = async () => {
+    try {
+      const { data } = await axios.post('/api/v1/messages/stream-ticket');
+      if (closed) return;
+      source = new EventSource(
+        `${BASE_URL}/api/v1/${rolePath}/messages/stream?ticket=${encodeURIComponent(data.ticket)}`
+      );
+      source.addEventListener('message', (event) => onMessage(JSON.parse(event.data)));
+      source.onerror = () => {
+        // Le ticket a pu expirer : la reconnexion automatique d'EventSource le réutiliserait
+        source.close();
+        scheduleRetry();
+      };
+    } catch (error) {
+      console.error("Ouverture du flux de messages impossible:", error);
+      scheduleRetry();
+    }
+  };
+
+  const scheduleRetry = () => {
+    if (!closed) {
+      retryTimer = setTimeout(connect, RETRY_DELAY);
+    }
+  };
+
+  connect();
+
+  return () => {
+    closed = true;
+    clearTimeout(retryTimer);
+    if (source) {
+      source.close();
+    }
+  };
+};
+
+const messageStreamService = {
+  subscribe,
+};
+
+export default messageStreamService;